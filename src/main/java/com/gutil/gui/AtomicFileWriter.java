@@ -0,0 +1,73 @@
+package com.gutil.gui;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes files through a temporary file in the same directory, moved over the target only once it is complete.
+ * A failed write leaves an existing target untouched, and a target which is also read by the write, such as the source
+ * of a processed image, is only replaced after the reading is done.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+final class AtomicFileWriter {
+
+    private AtomicFileWriter() {
+    }
+
+    /**
+     * Writes a file with the provided content, replacing an existing file only if the content was written successfully.
+     * @param target a {@code Path} of the file to write to.
+     * @param content writes the content to the file it is given.
+     * @return {@code true} if the target was written, {@code false} if writing the content or replacing the target failed.
+     */
+    static boolean write(Path target, Content content) {
+        Path file = target.toAbsolutePath();
+        Path temporaryFile = file.resolveSibling("." + file.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            if (!content.writeTo(temporaryFile)) {
+                return false;
+            }
+
+            try {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void deleteIfExists(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            //Nothing more can be done, the temporary file is left behind.
+        }
+    }
+
+    /**
+     * Content written to a file.
+     */
+    interface Content {
+
+        /**
+         * Writes the content to a new file.
+         * @param file a {@code Path} of the file to create and write to.
+         * @return {@code true} if the content was written.
+         * @throws IOException if writing fails.
+         */
+        boolean writeTo(Path file) throws IOException;
+
+    }
+
+}
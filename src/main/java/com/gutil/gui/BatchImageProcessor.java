@@ -0,0 +1,418 @@
+package com.gutil.gui;
+
+import javax.imageio.ImageIO;
+import java.awt.Image;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Processes many image files with the same transformation, in three overlapping stages: decoding, transformation and
+ * encoding. Decoding mostly waits for the file system, so it runs on virtual threads when the runtime supports them
+ * (Java 21 and newer), and on a cached thread pool otherwise. The CPU-bound transformation and encoding run on separate
+ * fixed pools of platform threads, so that every encoding thread keeps reusing its pooled {@code ImageWriter}.
+ * The number of images between reading and writing is limited, so a slow stage makes the earlier stages wait instead
+ * of filling up the memory with decoded images.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public class BatchImageProcessor {
+
+    private final UnaryOperator<Image> transform;
+    private String outputFormat = "png";
+    private ImageWriteOptions writeOptions;
+    private int transformThreads = Runtime.getRuntime().availableProcessors();
+    private int encodeThreads = Runtime.getRuntime().availableProcessors();
+    private int maxImagesInFlight = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates a processor applying the transformation to every image.
+     * @param transform a function transforming a decoded image, for example built with {@code ImagePipeline}.
+     */
+    public BatchImageProcessor(UnaryOperator<Image> transform) {
+        if (transform == null) {
+            throw new IllegalArgumentException("Transform cannot be null");
+        }
+        this.transform = transform;
+    }
+
+    /**
+     * Sets the format of the written images. Set to {@code "png"} by default.
+     * @param formatName an informal name of the format, such as {@code "png"} or {@code "jpg"}.
+     * @return this {@code BatchImageProcessor} instance.
+     */
+    public BatchImageProcessor setOutputFormat(String formatName) {
+        if (!ImageIO.getImageWritersByFormatName(formatName).hasNext()) {
+            throw new IllegalArgumentException("Unsupported output format: " + formatName);
+        }
+        this.outputFormat = formatName;
+        return this;
+    }
+
+    /**
+     * Sets the encoding settings of the written images.
+     * @param options encoding settings, or {@code null} to use the defaults.
+     * @return this {@code BatchImageProcessor} instance.
+     */
+    public BatchImageProcessor setWriteOptions(ImageWriteOptions options) {
+        this.writeOptions = options;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads transforming images. Set to the number of available processors by default.
+     * @param threads the number of transforming threads, greater than 0.
+     * @return this {@code BatchImageProcessor} instance.
+     */
+    public BatchImageProcessor setTransformThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be a positive number: " + threads);
+        }
+        this.transformThreads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads encoding and writing images. Set to the number of available processors by default.
+     * @param threads the number of encoding threads, greater than 0.
+     * @return this {@code BatchImageProcessor} instance.
+     */
+    public BatchImageProcessor setEncodeThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be a positive number: " + threads);
+        }
+        this.encodeThreads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of images being decoded, transformed or encoded at the same time, which limits the memory
+     * used by the decoded images. Set to twice the number of available processors by default.
+     * @param images the maximum number of images in flight, greater than 0.
+     * @return this {@code BatchImageProcessor} instance.
+     */
+    public BatchImageProcessor setMaxImagesInFlight(int images) {
+        if (images <= 0) {
+            throw new IllegalArgumentException("Number of images must be a positive number: " + images);
+        }
+        this.maxImagesInFlight = images;
+        return this;
+    }
+
+    /**
+     * Processes all regular files of a directory, not including subdirectories. The directory is listed before any
+     * image is written, so it may also be the output directory.
+     * @param inputDirectory a directory to read the images from.
+     * @param outputDirectory a directory to write the images to, created if needed.
+     * @return statistics of the processing.
+     * @throws IOException if the input directory cannot be listed or the output directory cannot be created.
+     */
+    public Report process(Path inputDirectory, Path outputDirectory) throws IOException {
+        List<Path> inputFiles;
+        try (Stream<Path> files = Files.list(inputDirectory)) {
+            inputFiles = files.filter(Files::isRegularFile).toList();
+        }
+        return process(inputFiles.stream(), outputDirectory);
+    }
+
+    /**
+     * Processes the provided files. Every written file has the name of the input file, with the extension of the output
+     * format. Files which cannot be decoded or encoded, or whose transformation fails, are counted as failed. So are
+     * files whose output file would be the same as that of an earlier file, such as {@code a.jpg} after {@code a.png},
+     * instead of overwriting its result.
+     * <p>
+     * If the calling thread is interrupted, no further files are started and the images waiting for a stage are
+     * counted as failed. The method then waits until the images already being processed are written or failed, and
+     * returns a report which is not {@link Report#isComplete() complete}, with the interrupt status of the thread set.
+     * @param inputFiles files to read the images from.
+     * @param outputDirectory a directory to write the images to, created if needed.
+     * @return statistics of the processing.
+     * @throws IOException if the output directory cannot be created.
+     */
+    public Report process(Stream<Path> inputFiles, Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+
+        int maxImages = maxImagesInFlight;
+        Report report = new Report();
+        Semaphore inFlight = new Semaphore(maxImages);
+        Set<Path> outputFiles = new HashSet<>();
+        ExecutorService ioExecutor = newIoExecutor();
+        ExecutorService transformExecutor = Executors.newFixedThreadPool(transformThreads);
+        ExecutorService encodeExecutor = Executors.newFixedThreadPool(encodeThreads);
+        long start = System.nanoTime();
+
+        try {
+            Iterator<Path> iterator = inputFiles.iterator();
+            while (iterator.hasNext()) {
+                Path inputFile = iterator.next();
+                Path outputFile = outputFile(inputFile, outputDirectory);
+                if (!outputFiles.add(outputFile.toAbsolutePath().normalize())) {
+                    report.failedCount.increment();
+                    continue;
+                }
+                inFlight.acquire();
+                ioExecutor.execute(() -> decode(inputFile, outputFile, report, inFlight, transformExecutor, encodeExecutor));
+            }
+            //Waiting until every image is written or failed.
+            inFlight.acquire(maxImages);
+        } catch (InterruptedException e) {
+            report.complete = false;
+            //Tasks which have not started yet are dropped, and their images counted as failed.
+            int droppedTasks = ioExecutor.shutdownNow().size() + transformExecutor.shutdownNow().size()
+                    + encodeExecutor.shutdownNow().size();
+            report.failedCount.add(droppedTasks);
+            inFlight.release(droppedTasks);
+            inFlight.acquireUninterruptibly(maxImages);
+            Thread.currentThread().interrupt();
+        } finally {
+            transformExecutor.shutdownNow();
+            encodeExecutor.shutdownNow();
+            ioExecutor.shutdownNow();
+            report.elapsedTime = System.nanoTime() - start;
+        }
+        return report;
+    }
+
+    /**
+     * Decodes an image and hands it over to the transformation stage. Every stage passes the image on, or counts it
+     * as failed and returns its permit, even if it ends with an {@code Error}, so that waiting for the permits of all
+     * images cannot hang.
+     */
+    private void decode(Path inputFile, Path outputFile, Report report, Semaphore inFlight,
+                        ExecutorService transformExecutor, ExecutorService encodeExecutor) {
+        boolean handedOver = false;
+        try {
+            long start = System.nanoTime();
+            Image image = read(inputFile);
+            report.decodeStatistics.record(start);
+            if (image != null) {
+                transformExecutor.execute(() -> transform(image, outputFile, report, inFlight, encodeExecutor));
+                handedOver = true;
+            }
+        } catch (RejectedExecutionException e) {
+            //The processing was interrupted, counted as failed below.
+        } finally {
+            if (!handedOver) {
+                fail(report, inFlight);
+            }
+        }
+    }
+
+    private static Image read(Path inputFile) {
+        try {
+            return ImageUtil.readImage(inputFile.toFile());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void transform(Image image, Path outputFile, Report report, Semaphore inFlight,
+                           ExecutorService encodeExecutor) {
+        boolean handedOver = false;
+        try {
+            long start = System.nanoTime();
+            Image newImage = transform.apply(image);
+            report.transformStatistics.record(start);
+            encodeExecutor.execute(() -> encode(newImage, outputFile, report, inFlight));
+            handedOver = true;
+        } catch (RuntimeException e) {
+            //Counted as failed below.
+        } finally {
+            if (!handedOver) {
+                fail(report, inFlight);
+            }
+        }
+    }
+
+    private void encode(Image image, Path outputFile, Report report, Semaphore inFlight) {
+        boolean written = false;
+        long start = System.nanoTime();
+        try {
+            written = ImageUtil.writeImage(image, outputFormat, outputFile, writeOptions);
+        } finally {
+            report.encodeStatistics.record(start);
+            if (written) {
+                report.processedCount.increment();
+                inFlight.release();
+            } else {
+                fail(report, inFlight);
+            }
+        }
+    }
+
+    private static void fail(Report report, Semaphore inFlight) {
+        report.failedCount.increment();
+        inFlight.release();
+    }
+
+    private Path outputFile(Path inputFile, Path outputDirectory) {
+        String fileName = inputFile.getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+        String baseName = extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName;
+        return outputDirectory.resolve(baseName + "." + outputFormat);
+    }
+
+    /**
+     * Creates a virtual thread per task executor if the runtime supports it, or a cached thread pool otherwise.
+     */
+    private static ExecutorService newIoExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Statistics of a single {@link #process(Stream, Path)} call.
+     */
+    public static class Report {
+
+        private final LongAdder processedCount = new LongAdder();
+        private final LongAdder failedCount = new LongAdder();
+        private final StageStatistics decodeStatistics = new StageStatistics("decode");
+        private final StageStatistics transformStatistics = new StageStatistics("transform");
+        private final StageStatistics encodeStatistics = new StageStatistics("encode");
+        private volatile long elapsedTime;
+        private volatile boolean complete = true;
+
+        private Report() {
+        }
+
+        /**
+         * Returns the number of images successfully written.
+         * @return the number of processed images.
+         */
+        public long getProcessedCount() {
+            return processedCount.sum();
+        }
+
+        /**
+         * Returns the number of files which could not be decoded, transformed or encoded.
+         * @return the number of failed images.
+         */
+        public long getFailedCount() {
+            return failedCount.sum();
+        }
+
+        /**
+         * Returns whether all files were processed, which is not the case if the processing was interrupted.
+         * @return {@code true} if every file was written or failed.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Returns the wall clock time of the whole processing.
+         * @return the elapsed time.
+         */
+        public Duration getElapsedTime() {
+            return Duration.ofNanos(elapsedTime);
+        }
+
+        /**
+         * Returns the number of images processed per second of the elapsed time.
+         * @return the overall throughput.
+         */
+        public double getThroughput() {
+            return elapsedTime > 0 ? getProcessedCount() * 1e9 / elapsedTime : 0;
+        }
+
+        /**
+         * Returns the statistics of the decoding stage.
+         * @return decoding statistics.
+         */
+        public StageStatistics getDecodeStatistics() {
+            return decodeStatistics;
+        }
+
+        /**
+         * Returns the statistics of the transformation stage.
+         * @return transformation statistics.
+         */
+        public StageStatistics getTransformStatistics() {
+            return transformStatistics;
+        }
+
+        /**
+         * Returns the statistics of the encoding stage.
+         * @return encoding statistics.
+         */
+        public StageStatistics getEncodeStatistics() {
+            return encodeStatistics;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d processed, %d failed in %d ms (%.1f images/s); %s; %s; %s", getProcessedCount(),
+                    getFailedCount(), getElapsedTime().toMillis(), getThroughput(), decodeStatistics,
+                    transformStatistics, encodeStatistics);
+        }
+
+    }
+
+    /**
+     * Number of images passed through a stage and the time spent on them, summed over all threads.
+     */
+    public static class StageStatistics {
+
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder busyTime = new LongAdder();
+
+        private StageStatistics(String name) {
+            this.name = name;
+        }
+
+        private void record(long start) {
+            busyTime.add(System.nanoTime() - start);
+            count.increment();
+        }
+
+        /**
+         * Returns the number of images which passed through the stage, including failed ones.
+         * @return the number of images.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Returns the time spent in the stage, summed over all threads.
+         * @return the total time of the stage.
+         */
+        public Duration getBusyTime() {
+            return Duration.ofNanos(busyTime.sum());
+        }
+
+        /**
+         * Returns the number of images a single thread passes through the stage per second.
+         * @return the throughput of the stage per thread.
+         */
+        public double getThroughput() {
+            long time = busyTime.sum();
+            return time > 0 ? count.sum() * 1e9 / time : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d images, %d ms busy (%.1f images/s per thread)", name, getCount(),
+                    getBusyTime().toMillis(), getThroughput());
+        }
+
+    }
+
+}
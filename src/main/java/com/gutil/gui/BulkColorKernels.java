@@ -0,0 +1,65 @@
+package com.gutil.gui;
+
+/**
+ * Bulk versions of the {@code ColorKernels} adjustments, transforming whole rows of packed ARGB pixels at once.
+ * Every adjustment reads {@code length} pixels starting at {@code sourceOffset} and writes the results starting at
+ * {@code targetOffset}. The source and target ranges may be the same. The alpha bits of every pixel are carried
+ * through unchanged. The inner loop of the {@code Resampler} is provided the same way.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+interface BulkColorKernels {
+
+    /**
+     * Inverts the RGB values of every pixel, as in {@link ColorKernels#invert(int)}.
+     * @param source an array to read from.
+     * @param sourceOffset index of the first pixel to read.
+     * @param target an array to write to.
+     * @param targetOffset index of the first pixel to write.
+     * @param length number of pixels to transform.
+     */
+    void invert(int[] source, int sourceOffset, int[] target, int targetOffset, int length);
+
+    /**
+     * Replaces the RGB values of every pixel with their mean value, as in {@link ColorKernels#grayscale(int)}.
+     * @param source an array to read from.
+     * @param sourceOffset index of the first pixel to read.
+     * @param target an array to write to.
+     * @param targetOffset index of the first pixel to write.
+     * @param length number of pixels to transform.
+     */
+    void grayscale(int[] source, int sourceOffset, int[] target, int targetOffset, int length);
+
+    /**
+     * Replaces the RGB values of every pixel within the threshold of the original color with the new color.
+     * @param source an array to read from.
+     * @param sourceOffset index of the first pixel to read.
+     * @param target an array to write to.
+     * @param targetOffset index of the first pixel to write.
+     * @param length number of pixels to transform.
+     * @param originalRGB the packed RGB value to be replaced.
+     * @param newRGB the packed RGB value to replace it with.
+     * @param threshold an acceptable difference of every channel, between 0 and 255.
+     */
+    void replace(int[] source, int sourceOffset, int[] target, int targetOffset, int length,
+                 int originalRGB, int newRGB, int threshold);
+
+    /**
+     * Resamples a row of pixels stored as four float channels each. Every target pixel {@code x} is the weighted sum
+     * of {@code count[x]} source pixels, starting at {@code start[x]}, with their weights starting at
+     * {@code weights[x * stride]}. Every weight is repeated for the four channels and the weights of each target pixel
+     * are padded with zeros, so that whole vectors can be read past the last of them. For the same reason the source
+     * must contain at least {@link Resampler#PADDING} readable floats past its last pixel.
+     * @param source channels of the source pixels.
+     * @param target an array to write the channels of the target pixels to.
+     * @param targetOffset index of the first channel to write.
+     * @param length number of target pixels.
+     * @param start index of the first contributing source pixel, for every target pixel.
+     * @param count number of contributing source pixels, for every target pixel.
+     * @param weights weights of the contributing source pixels.
+     * @param stride number of weights reserved for every target pixel.
+     */
+    void resample(float[] source, float[] target, int targetOffset, int length,
+                  int[] start, int[] count, float[] weights, int stride);
+
+}
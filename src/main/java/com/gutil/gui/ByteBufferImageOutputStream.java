@@ -0,0 +1,79 @@
+package com.gutil.gui;
+
+import javax.imageio.stream.ImageOutputStreamImpl;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@code ImageOutputStream} writing directly into a {@code ByteBuffer}, starting at its position and limited by its
+ * limit. The position of the buffer itself is not changed.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+final class ByteBufferImageOutputStream extends ImageOutputStreamImpl {
+
+    private final ByteBuffer buffer;
+    private final int start;
+    private int length;
+
+    ByteBufferImageOutputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.start = buffer.position();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        flushBits();
+        ensureCapacity(1);
+        buffer.put(start + (int) streamPos, (byte) b);
+        streamPos++;
+        length = Math.max(length, (int) streamPos);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int count) throws IOException {
+        flushBits();
+        ensureCapacity(count);
+        buffer.put(start + (int) streamPos, bytes, offset, count);
+        streamPos += count;
+        length = Math.max(length, (int) streamPos);
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        bitOffset = 0;
+        if (streamPos >= length) {
+            return -1;
+        }
+        return buffer.get(start + (int) streamPos++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int count) throws IOException {
+        checkClosed();
+        bitOffset = 0;
+        int available = length - (int) streamPos;
+        if (available <= 0) {
+            return count == 0 ? 0 : -1;
+        }
+
+        int readCount = Math.min(count, available);
+        buffer.get(start + (int) streamPos, bytes, offset, readCount);
+        streamPos += readCount;
+        return readCount;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    private void ensureCapacity(int count) throws IOException {
+        checkClosed();
+        if (start + streamPos + count > buffer.limit()) {
+            throw new IOException("Not enough space in the buffer: " + (buffer.limit() - start) + " bytes");
+        }
+    }
+
+}
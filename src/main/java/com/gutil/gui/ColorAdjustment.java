@@ -0,0 +1,239 @@
+package com.gutil.gui;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+
+/**
+ * Tonal adjustment of the alpha, red, green and blue channels, such as brightness, contrast, gamma or levels,
+ * compiled into a table of 256 output values per channel. Every pixel is adjusted with a single lookup per channel,
+ * and a sequence of adjustments combined with {@link #then(ColorAdjustment)} compiles into a single set of tables,
+ * so it costs the same as one adjustment. An adjustment is immutable, and can be applied to any number of images.
+ * <p>
+ * The alpha table has no effect on images without an alpha channel.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public final class ColorAdjustment {
+
+    private static final ColorAdjustment IDENTITY = new ColorAdjustment(identityTable(), identityTable(), identityTable(), identityTable());
+
+    //Output values of every channel, already shifted into their position in a packed ARGB pixel.
+    private final int[] alphaTable;
+    private final int[] redTable;
+    private final int[] greenTable;
+    private final int[] blueTable;
+
+    private ColorAdjustment(int[] alphaValues, int[] redValues, int[] greenValues, int[] blueValues) {
+        alphaTable = shifted(alphaValues, 24);
+        redTable = shifted(redValues, 16);
+        greenTable = shifted(greenValues, 8);
+        blueTable = shifted(blueValues, 0);
+    }
+
+    private static int[] identityTable() {
+        int[] values = new int[256];
+        for (int i = 0; i < 256; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    private static int[] shifted(int[] values, int shift) {
+        int[] table = new int[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = values[i] << shift;
+        }
+        return table;
+    }
+
+    /**
+     * Creates an adjustment applying the same table to the red, green and blue channels, leaving alpha unchanged.
+     */
+    private static ColorAdjustment ofColors(int[] values) {
+        return new ColorAdjustment(identityTable(), values, values, values);
+    }
+
+    private static int clamp(double value) {
+        return (int) Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    /**
+     * Returns an adjustment leaving every pixel unchanged.
+     * @return the identity {@code ColorAdjustment}.
+     */
+    public static ColorAdjustment identity() {
+        return IDENTITY;
+    }
+
+    /**
+     * Creates an adjustment adding the same offset to the red, green and blue values of every pixel.
+     * @param offset the value to be added, between -255 and 255.
+     * @return a new {@code ColorAdjustment} instance.
+     */
+    public static ColorAdjustment brightness(int offset) {
+        if (offset < -255 || offset > 255) {
+            throw new IllegalArgumentException("Brightness offset: " + offset + " - out of range.");
+        }
+
+        int[] values = new int[256];
+        for (int i = 0; i < 256; i++) {
+            values[i] = clamp(i + offset);
+        }
+        return ofColors(values);
+    }
+
+    /**
+     * Creates an adjustment scaling the distance of the red, green and blue values from the middle value.
+     * @param factor the contrast factor: 1 leaves the colors unchanged, values below 1 lower the contrast,
+     *               and values above 1 raise it.
+     * @return a new {@code ColorAdjustment} instance.
+     */
+    public static ColorAdjustment contrast(double factor) {
+        if (!(factor >= 0) || Double.isInfinite(factor)) {
+            throw new IllegalArgumentException("Contrast factor: " + factor + " - out of range.");
+        }
+
+        int[] values = new int[256];
+        for (int i = 0; i < 256; i++) {
+            values[i] = clamp((i - 127.5) * factor + 127.5);
+        }
+        return ofColors(values);
+    }
+
+    /**
+     * Creates a gamma correction of the red, green and blue values, mapping every value {@code v} to
+     * {@code 255 * (v / 255)^(1 / gamma)}.
+     * @param gamma the gamma value: 1 leaves the colors unchanged, values above 1 brighten the midtones,
+     *              and values below 1 darken them.
+     * @return a new {@code ColorAdjustment} instance.
+     */
+    public static ColorAdjustment gamma(double gamma) {
+        if (!(gamma > 0) || Double.isInfinite(gamma)) {
+            throw new IllegalArgumentException("Gamma: " + gamma + " - out of range.");
+        }
+
+        int[] values = new int[256];
+        for (int i = 0; i < 256; i++) {
+            values[i] = clamp(255 * Math.pow(i / 255.0, 1 / gamma));
+        }
+        return ofColors(values);
+    }
+
+    /**
+     * Creates a levels adjustment of the red, green and blue values. Values between the input black and white points
+     * are stretched linearly between the output black and white points, and values outside of the input range are
+     * clipped to the nearest output point.
+     * @param inputBlack the input value mapped to the output black point.
+     * @param inputWhite the input value mapped to the output white point, greater than the input black point.
+     * @param outputBlack the lowest output value, between 0 and 255.
+     * @param outputWhite the highest output value, between 0 and 255.
+     * @return a new {@code ColorAdjustment} instance.
+     */
+    public static ColorAdjustment levels(int inputBlack, int inputWhite, int outputBlack, int outputWhite) {
+        if (inputBlack < 0 || inputWhite > 255 || inputBlack >= inputWhite) {
+            throw new IllegalArgumentException("Input levels: " + inputBlack + ", " + inputWhite + " - out of range.");
+        }
+
+        if (outputBlack < 0 || outputBlack > 255 || outputWhite < 0 || outputWhite > 255) {
+            throw new IllegalArgumentException("Output levels: " + outputBlack + ", " + outputWhite + " - out of range.");
+        }
+
+        int[] values = new int[256];
+        double scale = (double) (outputWhite - outputBlack) / (inputWhite - inputBlack);
+        for (int i = 0; i < 256; i++) {
+            int value = Math.max(inputBlack, Math.min(inputWhite, i));
+            values[i] = clamp(outputBlack + (value - inputBlack) * scale);
+        }
+        return ofColors(values);
+    }
+
+    /**
+     * Creates an adjustment scaling the alpha value of every pixel, leaving its color unchanged.
+     * @param factor the opacity factor, between 0 (fully transparent) and 1 (unchanged).
+     * @return a new {@code ColorAdjustment} instance.
+     */
+    public static ColorAdjustment opacity(double factor) {
+        if (!(factor >= 0 && factor <= 1)) {
+            throw new IllegalArgumentException("Opacity factor: " + factor + " - out of range.");
+        }
+
+        int[] values = new int[256];
+        for (int i = 0; i < 256; i++) {
+            values[i] = clamp(i * factor);
+        }
+        return new ColorAdjustment(values, identityTable(), identityTable(), identityTable());
+    }
+
+    /**
+     * Combines this adjustment with another one, applied to its results, into a single set of tables.
+     * @param next an adjustment to be applied second.
+     * @return a new {@code ColorAdjustment} instance.
+     */
+    public ColorAdjustment then(ColorAdjustment next) {
+        int[] alphaValues = new int[256];
+        int[] redValues = new int[256];
+        int[] greenValues = new int[256];
+        int[] blueValues = new int[256];
+        for (int i = 0; i < 256; i++) {
+            alphaValues[i] = next.alphaTable[alphaTable[i] >>> 24] >>> 24;
+            redValues[i] = next.redTable[redTable[i] >> 16] >> 16;
+            greenValues[i] = next.greenTable[greenTable[i] >> 8] >> 8;
+            blueValues[i] = next.blueTable[blueTable[i]];
+        }
+        return new ColorAdjustment(alphaValues, redValues, greenValues, blueValues);
+    }
+
+    /**
+     * Applies the adjustment to a copy of the image.
+     * @param image an {@code Image} to be altered.
+     * @return a new altered {@code Image}. For images with an {@code IndexColorModel} only the palette is altered,
+     * and the resulting image shares its pixel data with the input.
+     */
+    public Image apply(Image image) {
+        return apply(image, null);
+    }
+
+    /**
+     * Applies the adjustment, writing the result into the destination image.
+     * @param image an {@code Image} to be altered.
+     * @param destination an image of the same size to write to, which may be the input itself,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public Image apply(Image image, BufferedImage destination) {
+        BufferedImage originalImage = (BufferedImage) image;
+        if (destination == null && originalImage.getColorModel() instanceof IndexColorModel) {
+            return PixelEngine.mapPalette(originalImage, this::applyAsInt);
+        }
+
+        BufferedImage newImage = ImageUtil.destinationImage(originalImage, destination, originalImage.getWidth(), originalImage.getHeight(), true);
+        PixelEngine.transformRows(originalImage, newImage, rowKernel());
+
+        return newImage;
+    }
+
+    /**
+     * Applies the adjustment to a single packed ARGB pixel.
+     * @param argb a packed ARGB pixel.
+     * @return the adjusted pixel.
+     */
+    int applyAsInt(int argb) {
+        return alphaTable[argb >>> 24] | redTable[(argb >> 16) & 0xFF] | greenTable[(argb >> 8) & 0xFF] | blueTable[argb & 0xFF];
+    }
+
+    /**
+     * Returns a row kernel applying the adjustment to every pixel of a row.
+     * @return a {@code RowKernel} for {@code PixelEngine.transformRows}.
+     */
+    PixelEngine.RowKernel rowKernel() {
+        return this::applyRows;
+    }
+
+    private void applyRows(int[] source, int sourceOffset, int[] target, int targetOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetOffset + i] = applyAsInt(source[sourceOffset + i]);
+        }
+    }
+
+}
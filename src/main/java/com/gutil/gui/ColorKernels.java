@@ -0,0 +1,96 @@
+package com.gutil.gui;
+
+import java.awt.Color;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Primitive counterparts of the {@code ColorUtil} adjustments, working on packed ARGB values instead of {@code Color}
+ * objects, so that they can be applied to every pixel of an image without any allocation. Whole rows of pixels are
+ * processed by {@link #bulk()} kernels, which use the Vector API when the {@code jdk.incubator.vector} module is
+ * available.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+final class ColorKernels {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNELS = "com.gutil.gui.VectorColorKernels";
+
+    private static final BulkColorKernels BULK_KERNELS = loadBulkKernels();
+
+    /**
+     * Returns the fastest {@code BulkColorKernels} implementation available at runtime.
+     * @return Vector API kernels if the {@code jdk.incubator.vector} module is present, scalar kernels otherwise.
+     */
+    static BulkColorKernels bulk() {
+        return BULK_KERNELS;
+    }
+
+    /**
+     * Checks whether the {@link #bulk()} kernels use the Vector API.
+     * @return {@code true} if the Vector API kernels were loaded.
+     */
+    static boolean isVectorized() {
+        return !(BULK_KERNELS instanceof ScalarColorKernels);
+    }
+
+    private static BulkColorKernels loadBulkKernels() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (BulkColorKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                //The module cannot be used on this platform, falling back to scalar kernels.
+            }
+        }
+        return new ScalarColorKernels();
+    }
+
+    /**
+     * Inverts the RGB values of a packed ARGB pixel, preserving its alpha. Equivalent to {@link ColorUtil#inverted(Color)}.
+     * @param argb a packed ARGB pixel.
+     * @return the inverted pixel.
+     */
+    static int invert(int argb) {
+        return argb ^ 0x00FFFFFF;
+    }
+
+    /**
+     * Replaces the RGB values of a packed ARGB pixel with their mean value, preserving its alpha.
+     * Equivalent to {@link ColorUtil#grayscale(Color)}.
+     * @param argb a packed ARGB pixel.
+     * @return the grayscale pixel.
+     */
+    static int grayscale(int argb) {
+        int meanValue = (((argb >> 16) & 0xFF) + ((argb >> 8) & 0xFF) + (argb & 0xFF)) / 3;
+        return (argb & 0xFF000000) | (meanValue * 0x010101);
+    }
+
+    /**
+     * Creates a kernel replacing pixels within a threshold of the original color with the new color, while preserving
+     * each pixel's alpha. Equivalent to a {@link ColorUtil#isColorWithinRange(Color, Color, int)} test followed by
+     * {@link ColorUtil#semiTransparent(Color, int)}.
+     * @param originalColor a {@code Color} to be replaced. If {@code null}, no pixel is replaced.
+     * @param newColor a target {@code Color} to replace the original one.
+     * @param threshold an acceptable difference from the original color, between 0 and 255.
+     * @return a kernel performing the replacement.
+     */
+    static IntUnaryOperator replace(Color originalColor, Color newColor, int threshold) {
+        if (originalColor == null) {
+            return IntUnaryOperator.identity();
+        }
+        return RecolorOperation.of(originalColor, newColor, threshold)::applyAsInt;
+    }
+
+    /**
+     * Creates a row kernel performing the same replacement as {@link #replace(Color, Color, int)}, with the
+     * {@link #bulk()} kernels if they use the Vector API, or with the tables of a {@code RecolorOperation} otherwise.
+     * @param originalColor a {@code Color} to be replaced. If {@code null}, no pixel is replaced.
+     * @param newColor a target {@code Color} to replace the original one.
+     * @param threshold an acceptable difference from the original color, between 0 and 255.
+     * @return a row kernel performing the replacement.
+     */
+    static PixelEngine.RowKernel replaceRows(Color originalColor, Color newColor, int threshold) {
+        return RecolorOperation.of(originalColor, newColor, threshold).rowKernel();
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.gutil.gui;
+
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * Cropped area of an image, sharing the pixels of the original image until it is written to. Creating a view and
+ * reading from it does not copy any pixels, so it costs the same regardless of the image size. The first write,
+ * or an explicit {@link #materialize()} call, copies the area into a separate image, used by the view from then on.
+ * <p>
+ * Until then, changes made to the original image within the cropped area are visible through the view.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public class CropView {
+
+    private final BufferedImage originalImage;
+    private final Rectangle bounds;
+    private BufferedImage image;
+    private boolean materialized;
+
+    CropView(BufferedImage originalImage, Rectangle bounds) {
+        this.originalImage = originalImage;
+        this.bounds = new Rectangle(bounds);
+        this.image = originalImage.getSubimage(bounds.x, bounds.y, bounds.width, bounds.height);
+    }
+
+    /**
+     * Returns the cropped image for reading, for example to be drawn or passed to other {@code ImageUtil} methods.
+     * Before the view is materialized, the returned image shares its pixels with the original image, and must not be
+     * modified directly.
+     * @return the cropped {@code Image}.
+     */
+    public Image getImage() {
+        return image;
+    }
+
+    /**
+     * Returns the area of the original image covered by the view.
+     * @return a copy of the crop bounds.
+     */
+    public Rectangle getBounds() {
+        return new Rectangle(bounds);
+    }
+
+    /**
+     * Returns the width of the view.
+     * @return the cropped width in pixels.
+     */
+    public int getWidth() {
+        return bounds.width;
+    }
+
+    /**
+     * Returns the height of the view.
+     * @return the cropped height in pixels.
+     */
+    public int getHeight() {
+        return bounds.height;
+    }
+
+    /**
+     * Checks whether the view holds its own copy of the pixels.
+     * @return {@code true} if the view no longer shares the pixels of the original image.
+     */
+    public boolean isMaterialized() {
+        return materialized;
+    }
+
+    /**
+     * Returns a single pixel of the view.
+     * @param x horizontal coordinate of the pixel, relative to the view.
+     * @param y vertical coordinate of the pixel, relative to the view.
+     * @return the packed ARGB value of the pixel.
+     */
+    public int getRGB(int x, int y) {
+        return image.getRGB(x, y);
+    }
+
+    /**
+     * Sets a single pixel of the view, leaving the original image unchanged. The view is materialized first if needed.
+     * @param x horizontal coordinate of the pixel, relative to the view.
+     * @param y vertical coordinate of the pixel, relative to the view.
+     * @param argb the packed ARGB value of the pixel.
+     * @return this {@code CropView} instance.
+     */
+    public CropView setRGB(int x, int y, int argb) {
+        materialize().setRGB(x, y, argb);
+        return this;
+    }
+
+    /**
+     * Copies the cropped area into a separate image, unless already done, and returns that image. The returned image
+     * may be freely modified, and all changes are visible through the view.
+     * @return the {@code BufferedImage} owned by this view.
+     */
+    public BufferedImage materialize() {
+        if (!materialized) {
+            BufferedImage copy = PixelEngine.createCompatibleImage(originalImage, bounds.width, bounds.height);
+            PixelEngine.remap(originalImage, copy, PixelMapping.translation(bounds.x, bounds.y), null);
+            image = copy;
+            materialized = true;
+        }
+        return image;
+    }
+
+}
@@ -0,0 +1,248 @@
+package com.gutil.gui;
+
+import java.awt.Image;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of images decoded from files, keyed by the canonical file path, the file size and its last modification time,
+ * so that a file changed on disk is decoded again. Images are softly referenced and may be reclaimed by the garbage
+ * collector under memory pressure. The total size of the cached images is limited by a byte budget, and the least
+ * recently used entries are evicted first. Concurrent reads of the same file are decoded only once.
+ * Cached images are shared between callers and must not be modified.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public class ImageCache {
+
+    private static final ImageCache DEFAULT_CACHE = new ImageCache(64L << 20);
+
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, CompletableFuture<Image>> loads = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Image> collectedImages = new ReferenceQueue<>();
+
+    private long bytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates an empty cache.
+     * @param maxBytes the maximum total size of the cached images, in bytes.
+     */
+    public ImageCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size cannot be less than 0: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cache used by {@link ImageUtil#readCachedImage(File)}, limited to 64 MB.
+     * @return the default {@code ImageCache}.
+     */
+    public static ImageCache getDefault() {
+        return DEFAULT_CACHE;
+    }
+
+    /**
+     * Reads image from file without throwing exceptions on failure, as described in {@link ImageUtil#readImage(File)}.
+     * The file is only decoded if it was not read before, or if it changed since.
+     * @param imageFile a {@code File} to read from.
+     * @return {@code Image} from a specified file, possibly shared with other callers, or {@code null}.
+     */
+    public Image read(File imageFile) {
+        Key key = Key.of(imageFile);
+        if (key == null) {
+            return ImageUtil.readImage(imageFile);
+        }
+
+        Image cachedImage = cachedImage(key);
+        if (cachedImage != null) {
+            return cachedImage;
+        }
+
+        CompletableFuture<Image> load = new CompletableFuture<>();
+        CompletableFuture<Image> runningLoad = loads.putIfAbsent(key, load);
+        if (runningLoad != null) {
+            synchronized (this) {
+                hitCount++;
+            }
+            return await(runningLoad);
+        }
+
+        try {
+            //A concurrent load could have finished between the first lookup and registering this one.
+            Image image = cachedImage(key);
+            if (image != null) {
+                load.complete(image);
+                return image;
+            }
+
+            synchronized (this) {
+                missCount++;
+            }
+            image = ImageUtil.readImage(imageFile);
+            if (image != null) {
+                store(key, image);
+            }
+            load.complete(image);
+            return image;
+        } catch (RuntimeException | Error e) {
+            //Failing the load, including on errors such as OutOfMemoryError, so that threads waiting for it do not hang.
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    /**
+     * Removes all cached images. The hit, miss and eviction counters are left unchanged.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns the number of reads answered with a cached image, or with an image decoded by a concurrent read.
+     * @return the number of cache hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of reads which had to decode the file.
+     * @return the number of cache misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of cached images removed to stay within the byte budget.
+     * @return the number of evictions.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the current total size of the cached images, including images which were reclaimed by the garbage
+     * collector but not yet removed from the cache.
+     * @return the size of the cached images, in bytes.
+     */
+    public synchronized long getSize() {
+        return bytes;
+    }
+
+    /**
+     * Returns the maximum total size of the cached images.
+     * @return the byte budget of this cache.
+     */
+    public long getMaxSize() {
+        return maxBytes;
+    }
+
+    private synchronized Image cachedImage(Key key) {
+        removeCollectedImages();
+        Entry entry = entries.get(key.path);
+        Image image = entry != null && entry.key.equals(key) ? entry.get() : null;
+        if (image != null) {
+            hitCount++;
+        }
+        return image;
+    }
+
+    private synchronized void store(Key key, Image image) {
+        long size = ResizeCache.sizeOf(image);
+        if (size > maxBytes) {
+            return;
+        }
+
+        Entry previous = entries.put(key.path, new Entry(key, image, size, collectedImages));
+        bytes += size - (previous != null ? previous.bytes : 0);
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= iterator.next().bytes;
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    private void removeCollectedImages() {
+        Reference<? extends Image> reference;
+        while ((reference = collectedImages.poll()) != null) {
+            Entry entry = (Entry) reference;
+            if (entries.get(entry.key.path) == entry) {
+                entries.remove(entry.key.path);
+                bytes -= entry.bytes;
+            }
+        }
+    }
+
+    private static Image await(CompletableFuture<Image> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Identifies a version of a file by its path, size and last modification time.
+     */
+    private record Key(String path, long length, long lastModified) {
+
+        /**
+         * @return the key of the file, or {@code null} if it is not an existing regular file.
+         */
+        static Key of(File file) {
+            if (file == null || !file.isFile()) {
+                return null;
+            }
+
+            String path;
+            try {
+                path = file.getCanonicalPath();
+            } catch (IOException e) {
+                path = file.getAbsolutePath();
+            }
+            return new Key(path, file.length(), file.lastModified());
+        }
+
+    }
+
+    private static class Entry extends SoftReference<Image> {
+
+        private final Key key;
+        private final long bytes;
+
+        Entry(Key key, Image image, long bytes, ReferenceQueue<Image> queue) {
+            super(image, queue);
+            this.key = key;
+            this.bytes = bytes;
+        }
+
+    }
+
+}
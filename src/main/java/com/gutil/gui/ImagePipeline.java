@@ -0,0 +1,264 @@
+package com.gutil.gui;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Lazy chain of {@code ImageUtil} operations. Operations are only recorded until {@link #toImage()} is called.
+ * Consecutive crops, flips, rotations and color adjustments are then fused into a single pass producing a single
+ * new image, instead of creating a full intermediate copy for every step. Resizing ends a fused pass, so a chain
+ * containing resizes is evaluated as one pass per resize.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public class ImagePipeline {
+
+    private final BufferedImage source;
+    private final List<Stage> stages = new ArrayList<>();
+    private Stage stage;
+
+    private int width;
+    private int height;
+
+    private ImagePipeline(BufferedImage source) {
+        this.source = source;
+        this.width = source.getWidth();
+        this.height = source.getHeight();
+        this.stage = new Stage(width, height);
+        stages.add(stage);
+    }
+
+    /**
+     * Starts a new pipeline of operations on the provided {@code Image}. The image itself is never modified.
+     * @param image an {@code Image} to be processed.
+     * @return a new {@code ImagePipeline} instance.
+     */
+    public static ImagePipeline of(Image image) {
+        return new ImagePipeline((BufferedImage) image);
+    }
+
+    /**
+     * Adds a crop, as described in {@link ImageUtil#crop(Image, int, int, int, int)}.
+     * @param top a value to be cropped at the top.
+     * @param right a value to be cropped on the right side.
+     * @param bottom a value to be cropped at the bottom.
+     * @param left a value to be cropped on the left side.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline crop(int top, int right, int bottom, int left) {
+        return crop(ImageUtil.cropBounds(width, height, top, right, bottom, left));
+    }
+
+    /**
+     * Adds a crop, as described in {@link ImageUtil#cropByPercentage(Image, int, int, int, int)}.
+     * @param top a value to be cropped at the top.
+     * @param right a value to be cropped on the right side.
+     * @param bottom a value to be cropped at the bottom.
+     * @param left a value to be cropped on the left side.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline cropByPercentage(int top, int right, int bottom, int left) {
+        return crop(ImageUtil.percentageCropBounds(width, height, top, right, bottom, left));
+    }
+
+    private ImagePipeline crop(Rectangle bounds) {
+        return remap(PixelMapping.translation(bounds.x, bounds.y), bounds.width, bounds.height);
+    }
+
+    /**
+     * Adds a horizontal flip.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline flipHorizontally() {
+        return remap(PixelMapping.flip(width, height, true, false), width, height);
+    }
+
+    /**
+     * Adds a vertical flip.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline flipVertically() {
+        return remap(PixelMapping.flip(width, height, false, true), width, height);
+    }
+
+    /**
+     * Adds a rotation by 90°.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline rotateBy90Degrees() {
+        return remap(PixelMapping.rotation90(height), height, width);
+    }
+
+    /**
+     * Adds a rotation by 180°.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline rotateBy180Degrees() {
+        return remap(PixelMapping.flip(width, height, true, true), width, height);
+    }
+
+    /**
+     * Adds a rotation by 270°.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline rotateBy270Degrees() {
+        return remap(PixelMapping.rotation270(width), height, width);
+    }
+
+    /**
+     * Adds a color inversion, as described in {@link ImageUtil#invertColors(Image)}.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline invertColors() {
+        return apply(ColorKernels::invert);
+    }
+
+    /**
+     * Adds a grayscale conversion, as described in {@link ImageUtil#convertToGrayscale(Image)}.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline convertToGrayscale() {
+        return apply(ColorKernels::grayscale);
+    }
+
+    /**
+     * Adds a channel adjustment, as described in {@link ImageUtil#adjust(Image, ColorAdjustment)}.
+     * @param adjustment a {@code ColorAdjustment} to be applied to every pixel.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline adjust(ColorAdjustment adjustment) {
+        return apply(adjustment::applyAsInt);
+    }
+
+    /**
+     * Adds a color replacement, as described in {@link ImageUtil#replaceColor(Image, Color, Color)}.
+     * @param originalColor a {@code Color} to be replaced.
+     * @param newColor a target {@code Color} to replace the original one.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline replaceColor(Color originalColor, Color newColor) {
+        return replaceColor(originalColor, newColor, 0);
+    }
+
+    /**
+     * Adds a color replacement, as described in {@link ImageUtil#replaceColor(Image, Color, Color, int)}.
+     * @param originalColor a {@code Color} to be replaced.
+     * @param newColor a target {@code Color} to replace the original one.
+     * @param threshold an acceptable difference from the original color to still qualify for a replacement.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline replaceColor(Color originalColor, Color newColor, int threshold) {
+        return apply(ColorKernels.replace(originalColor, newColor, threshold));
+    }
+
+    /**
+     * Adds a resize, as described in {@link ImageUtil#resize(Image, int, int, ResizeQuality)}.
+     * Operations added after a resize are evaluated in a separate pass.
+     * @param targetWidth a target width of the resized image.
+     * @param targetHeight a target height of the resized image.
+     * @param quality a constant value determining either a low quality fast result or more time-consuming quality scaling.
+     * @return this {@code ImagePipeline} instance.
+     */
+    public ImagePipeline resize(int targetWidth, int targetHeight, ResizeQuality quality) {
+        Dimension targetSize = ImageUtil.resizedSize(width, height, targetWidth, targetHeight);
+        if (targetSize.width == width && targetSize.height == height) {
+            return this;
+        }
+
+        stage.resizeQuality = quality;
+        stage.resizeWidth = targetSize.width;
+        stage.resizeHeight = targetSize.height;
+        width = targetSize.width;
+        height = targetSize.height;
+        stage = new Stage(width, height);
+        stages.add(stage);
+        return this;
+    }
+
+    /**
+     * Evaluates all recorded operations.
+     * @return a new {@code Image} with all operations applied, or the original image if no operation was recorded.
+     * For images with an {@code IndexColorModel} color operations alter the palette, and if no other operation was
+     * recorded, the resulting image shares its pixel data with the input.
+     */
+    public Image toImage() {
+        ScratchImagePool pool = ScratchImagePool.getDefault();
+        BufferedImage image = source;
+        for (Stage nextStage : stages) {
+            BufferedImage stageSource = image;
+            IntUnaryOperator kernel = nextStage.kernel;
+            if (kernel != null && image.getColorModel() instanceof IndexColorModel) {
+                //As in ImageUtil, only the palette is recolored, instead of quantizing the new colors into the old palette.
+                stageSource = PixelEngine.mapPalette(image, kernel);
+                kernel = null;
+            }
+
+            if (!nextStage.mapping.isIdentity() || kernel != null) {
+                BufferedImage newImage = pool.acquireCompatible(stageSource, nextStage.width, nextStage.height);
+                PixelEngine.remap(stageSource, newImage, nextStage.mapping, kernel);
+                image = replace(image, newImage);
+            } else if (stageSource != image) {
+                //The recolored image shares its pixel data with the previous one, which therefore cannot be reused.
+                image = stageSource;
+            }
+
+            if (nextStage.resizeQuality != null) {
+                BufferedImage newImage = (BufferedImage) ImageUtil.resize(image, nextStage.resizeWidth, nextStage.resizeHeight, nextStage.resizeQuality);
+                image = replace(image, newImage);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Returns an intermediate image, replaced by the result of the next step, to the default {@code ScratchImagePool}.
+     */
+    private BufferedImage replace(BufferedImage image, BufferedImage newImage) {
+        if (image != source) {
+            ScratchImagePool.getDefault().release(image);
+        }
+        return newImage;
+    }
+
+    private ImagePipeline remap(PixelMapping mapping, int newWidth, int newHeight) {
+        stage.mapping = stage.mapping.then(mapping);
+        stage.width = newWidth;
+        stage.height = newHeight;
+        width = newWidth;
+        height = newHeight;
+        return this;
+    }
+
+    private ImagePipeline apply(IntUnaryOperator kernel) {
+        stage.kernel = stage.kernel == null ? kernel : stage.kernel.andThen(kernel);
+        return this;
+    }
+
+    /**
+     * A single fused pass: a coordinate mapping and a color kernel, optionally followed by a resize.
+     */
+    private static class Stage {
+
+        private PixelMapping mapping = PixelMapping.IDENTITY;
+        private IntUnaryOperator kernel;
+        private int width;
+        private int height;
+        private ResizeQuality resizeQuality;
+        private int resizeWidth;
+        private int resizeHeight;
+
+        Stage(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+    }
+
+}
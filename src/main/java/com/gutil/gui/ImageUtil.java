@@ -1,18 +1,33 @@
 package com.gutil.gui;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Image;
-import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
-import java.util.function.Function;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Class providing image tools for resizing, cropping, flipping and color adjustment.
@@ -22,11 +37,53 @@ import java.util.function.Function;
 public class ImageUtil {
 
     /**
-     * Reads image from file without throwing exceptions on failure.
+     * Enables or disables parallel processing. When enabled, pixel operations on images of at least
+     * {@link #getParallelThreshold()} pixels are split into bands of rows processed on the common {@code ForkJoinPool}.
+     * Enabled by default.
+     * @param enabled should large images be processed in parallel.
+     */
+    public static void setParallelProcessing(boolean enabled) {
+        PixelEngine.setParallel(enabled);
+    }
+
+    /**
+     * Returns whether large images are processed in parallel.
+     * @return {@code true} if parallel processing is enabled.
+     */
+    public static boolean isParallelProcessing() {
+        return PixelEngine.isParallel();
+    }
+
+    /**
+     * Sets the minimum size of a resulting image, in pixels, for which parallel processing is used.
+     * Smaller images are always processed on the calling thread.
+     * @param pixelCount the minimum number of pixels, cannot be less than 0.
+     */
+    public static void setParallelThreshold(int pixelCount) {
+        PixelEngine.setParallelThreshold(pixelCount);
+    }
+
+    /**
+     * Returns the minimum size of a resulting image, in pixels, for which parallel processing is used.
+     * @return the minimum number of pixels.
+     */
+    public static int getParallelThreshold() {
+        return PixelEngine.getParallelThreshold();
+    }
+
+    /**
+     * Reads image from file without throwing exceptions on failure. PNG files with 8-bit RGB or RGBA channels are decoded
+     * directly into {@code TYPE_INT_RGB} or {@code TYPE_INT_ARGB} images, processed fastest by the other methods of this
+     * class. Other files are read with {@code ImageIO}.
      * @param imageFile a {@code File} to read from.
      * @return {@code Image} from a specified file, or {@code null}.
      */
     public static Image readImage(File imageFile) {
+        BufferedImage image = PngDecoder.read(imageFile);
+        if (image != null) {
+            return image;
+        }
+
         try {
             return ImageIO.read(imageFile);
         } catch (IOException e) {
@@ -34,6 +91,240 @@ public class ImageUtil {
         }
     }
 
+    /**
+     * Reads image from file without throwing exceptions on failure, reusing the image decoded by a previous call for
+     * the same unchanged file. The returned image is shared through the default {@link ImageCache} and must not be modified.
+     * @param imageFile a {@code File} to read from.
+     * @return {@code Image} from a specified file, or {@code null}.
+     */
+    public static Image readCachedImage(File imageFile) {
+        return ImageCache.getDefault().read(imageFile);
+    }
+
+    /**
+     * Reads a rectangular region of an image from file without throwing exceptions on read failure.
+     * Only the pixels within the region are decoded, so the full image is never loaded into memory.
+     * @param imageFile a {@code File} to read from.
+     * @param region the area of the image to be read, clipped to the image bounds.
+     * @return {@code Image} of the region, or {@code null} if the file cannot be read or the region lies outside the image.
+     * @throws IllegalArgumentException if the region is {@code null}.
+     */
+    public static Image readImage(File imageFile, Rectangle region) {
+        if (region == null) {
+            throw new IllegalArgumentException("Region cannot be null");
+        }
+
+        return decode(imageFile, (reader, param) -> {
+            Rectangle bounds = region.intersection(new Rectangle(reader.getWidth(0), reader.getHeight(0)));
+            if (bounds.isEmpty()) {
+                return false;
+            }
+            param.setSourceRegion(bounds);
+            return true;
+        });
+    }
+
+    /**
+     * Reads an image from file, scaled to the target dimensions, without throwing exceptions on read failure.
+     * The image is decoded with source subsampling, skipping the rows and columns not needed for the target size,
+     * and the subsampled image (at least twice as big as the target) is then resized with {@link ResizeQuality#HIGH}.
+     * If one of the dimensions provided is zero, the image gets scaled according to the other target dimension,
+     * while preserving original proportions.
+     * @param imageFile a {@code File} to read from.
+     * @param targetWidth a target width of the image.
+     * @param targetHeight a target height of the image.
+     * @return {@code Image} from a specified file scaled to the target dimensions, or {@code null}.
+     * @throws IllegalArgumentException if a target dimension is negative or both of them are zero.
+     */
+    public static Image readImage(File imageFile, int targetWidth, int targetHeight) {
+        checkTargetSize(targetWidth, targetHeight);
+
+        Dimension[] targetSize = new Dimension[1];
+        BufferedImage image = decode(imageFile, (reader, param) -> {
+            int imageWidth = reader.getWidth(0);
+            int imageHeight = reader.getHeight(0);
+            targetSize[0] = resizedSize(imageWidth, imageHeight, targetWidth, targetHeight);
+
+            int subsampling = Math.min(imageWidth / Math.max(1, targetSize[0].width),
+                    imageHeight / Math.max(1, targetSize[0].height)) / 2;
+            if (subsampling > 1) {
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            }
+            return true;
+        });
+
+        if (image == null) {
+            return null;
+        }
+        return resize(image, targetSize[0].width, targetSize[0].height, ResizeQuality.HIGH);
+    }
+
+    /**
+     * Decodes the first image of a file with the first available {@code ImageReader}, using read parameters
+     * prepared by the provided {@code ReadParamSetup}.
+     * @return the decoded image, or {@code null} if the file cannot be read or the setup declined reading.
+     */
+    private static BufferedImage decode(File imageFile, ReadParamSetup setup) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imageFile)) {
+            if (input == null) {
+                return null;
+            }
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                return setup.prepare(reader, param) ? reader.read(0, param) : null;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Prepares the parameters of a partial image read, based on the image dimensions known by the reader.
+     */
+    private interface ReadParamSetup {
+
+        /**
+         * @return {@code false} if there is nothing to be read.
+         */
+        boolean prepare(ImageReader reader, ImageReadParam param) throws IOException;
+
+    }
+
+    /**
+     * Writes an image to file with the default encoding settings, without throwing exceptions on failure.
+     * @param image an {@code Image} to be written.
+     * @param formatName an informal name of the format, such as {@code "png"} or {@code "jpg"}.
+     * @param target a {@code Path} of the file to write to. An existing file is replaced only if writing succeeds.
+     * @return {@code true} if the image was written, {@code false} if there is no writer for the format or writing failed.
+     */
+    public static boolean writeImage(Image image, String formatName, Path target) {
+        return writeImage(image, formatName, target, null);
+    }
+
+    /**
+     * Writes an image to file without throwing exceptions on failure. The {@code ImageWriter} of the format is reused
+     * by all writes performed on the calling thread. The image is written to a temporary file first, which replaces
+     * the target once it is complete, so a failed write leaves an existing file untouched.
+     * @param image an {@code Image} to be written.
+     * @param formatName an informal name of the format, such as {@code "png"} or {@code "jpg"}.
+     * @param target a {@code Path} of the file to write to. An existing file is replaced only if writing succeeds.
+     * @param options encoding settings, or {@code null} to use the defaults.
+     * @return {@code true} if the image was written, {@code false} if there is no writer for the format or writing failed.
+     */
+    public static boolean writeImage(Image image, String formatName, Path target, ImageWriteOptions options) {
+        return AtomicFileWriter.write(target, file -> encode(image, formatName, options, () -> new FileImageOutputStream(file.toFile())));
+    }
+
+    /**
+     * Writes an image to a stream with the default encoding settings, without throwing exceptions on failure.
+     * @param image an {@code Image} to be written.
+     * @param formatName an informal name of the format, such as {@code "png"} or {@code "jpg"}.
+     * @param target an {@code OutputStream} to write to. The stream is not closed.
+     * @return {@code true} if the image was written, {@code false} if there is no writer for the format or writing failed.
+     */
+    public static boolean writeImage(Image image, String formatName, OutputStream target) {
+        return writeImage(image, formatName, target, null);
+    }
+
+    /**
+     * Writes an image to a stream without throwing exceptions on failure. The {@code ImageWriter} of the format is
+     * reused by all writes performed on the calling thread.
+     * @param image an {@code Image} to be written.
+     * @param formatName an informal name of the format, such as {@code "png"} or {@code "jpg"}.
+     * @param target an {@code OutputStream} to write to. The stream is not closed.
+     * @param options encoding settings, or {@code null} to use the defaults.
+     * @return {@code true} if the image was written, {@code false} if there is no writer for the format or writing failed.
+     */
+    public static boolean writeImage(Image image, String formatName, OutputStream target, ImageWriteOptions options) {
+        return encode(image, formatName, options, () -> new MemoryCacheImageOutputStream(target));
+    }
+
+    /**
+     * Writes an image to a buffer with the default encoding settings, without throwing exceptions on failure.
+     * @param image an {@code Image} to be written.
+     * @param formatName an informal name of the format, such as {@code "png"} or {@code "jpg"}.
+     * @param target a {@code ByteBuffer} to write to, starting at its position.
+     * @return {@code true} if the image was written, {@code false} if there is no writer for the format, the buffer is
+     * too small or writing failed.
+     */
+    public static boolean writeImage(Image image, String formatName, ByteBuffer target) {
+        return writeImage(image, formatName, target, null);
+    }
+
+    /**
+     * Writes an image directly into a buffer without throwing exceptions on failure. On success the buffer position is
+     * moved past the encoded image. The {@code ImageWriter} of the format is reused by all writes performed on the
+     * calling thread.
+     * @param image an {@code Image} to be written.
+     * @param formatName an informal name of the format, such as {@code "png"} or {@code "jpg"}.
+     * @param target a {@code ByteBuffer} to write to, starting at its position.
+     * @param options encoding settings, or {@code null} to use the defaults.
+     * @return {@code true} if the image was written, {@code false} if there is no writer for the format, the buffer is
+     * too small or writing failed.
+     */
+    public static boolean writeImage(Image image, String formatName, ByteBuffer target, ImageWriteOptions options) {
+        ByteBufferImageOutputStream output = new ByteBufferImageOutputStream(target);
+        if (!encode(image, formatName, options, () -> output)) {
+            return false;
+        }
+        target.position(target.position() + (int) output.length());
+        return true;
+    }
+
+    /**
+     * Encodes the image with a pooled writer of the format able to encode it, into a stream opened only if such a writer
+     * exists. Large PNG images are encoded in parallel by {@code PngEncoder} instead, if parallel processing is enabled.
+     * Exceptions thrown by the writers, such as an {@code IllegalArgumentException} for an unsupported image, are reported
+     * as a failure as well.
+     */
+    private static boolean encode(Image image, String formatName, ImageWriteOptions options, OutputOpener opener) {
+        try {
+            if ("png".equalsIgnoreCase(formatName) && image instanceof BufferedImage bufferedImage
+                    && PixelEngine.shouldRunInParallel(bufferedImage.getWidth(), bufferedImage.getHeight())
+                    && PngEncoder.supports(bufferedImage)) {
+                int level = options != null && options.getDeflateLevel() >= 0 ? options.getDeflateLevel() : PngEncoder.DEFAULT_DEFLATE_LEVEL;
+                try (ImageOutputStream output = opener.open()) {
+                    PngEncoder.write(bufferedImage, level, output);
+                    return true;
+                }
+            }
+
+            if (!(image instanceof RenderedImage renderedImage)) {
+                return false;
+            }
+            ImageWriter writer = ImageWriterPool.writer(formatName, renderedImage);
+            if (writer == null) {
+                return false;
+            }
+
+            try (ImageOutputStream output = opener.open()) {
+                ImageWriterPool.write(writer, renderedImage, options, output);
+                return true;
+            }
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens the stream an image is encoded into.
+     */
+    private interface OutputOpener {
+
+        ImageOutputStream open() throws IOException;
+
+    }
+
     /**
      * Creates a deep copy of a provided {@code BufferedImage}.
      * @param bufferedImage a {@code BufferedImage} to be copied.
@@ -52,42 +343,104 @@ public class ImageUtil {
      * @param image an {@code Image} to be resized.
      * @param targetWidth a target width of the resized image.
      * @param targetHeight a target height of the resized image.
-     * @param quality a constant value determining either a low quality fast result or more time-consuming quality scaling.
+     * @param quality a constant value determining the scaling algorithm, from a low quality fast result to more time-consuming quality scaling.
      * @return a resized version of an {@code Image}.
      */
     public static Image resize(Image image, int targetWidth, int targetHeight, ResizeQuality quality) {
-        if (targetWidth < 0 || targetHeight < 0) {
-            throw new IllegalArgumentException("Target width and target height must be positive numbers.");
+        int imageHeight = image.getHeight(null);
+        int imageWidth = image.getWidth(null);
+
+        Dimension targetSize = resizedSize(imageWidth, imageHeight, targetWidth, targetHeight);
+        if (targetSize.width == imageWidth && targetSize.height == imageHeight) {
+            return image;
         }
 
-        if (targetWidth == 0 && targetHeight == 0) {
-            throw new IllegalArgumentException("Target width and target height cannot be both zero");
+        BufferedImage originalImage = (BufferedImage) image;
+        return resize(originalImage, quality, ScratchImagePool.getDefault().acquire(targetSize.width, targetSize.height, resizedType(originalImage)));
+    }
+
+    /**
+     * Resizes the input into the provided image, as described in {@link #resize(Image, int, int, ResizeQuality)}.
+     * Unlike the other version, an image of the same size as the input is copied into the destination.
+     * @param image an {@code Image} to be resized.
+     * @param targetWidth a target width of the resized image.
+     * @param targetHeight a target height of the resized image.
+     * @param quality a constant value determining the scaling algorithm.
+     * @param destination an image of the resized dimensions to write to, not sharing pixels with the input.
+     * @return the destination image.
+     */
+    public static Image resize(Image image, int targetWidth, int targetHeight, ResizeQuality quality, BufferedImage destination) {
+        BufferedImage originalImage = (BufferedImage) image;
+        Dimension targetSize = resizedSize(originalImage.getWidth(), originalImage.getHeight(), targetWidth, targetHeight);
+        checkDestination(originalImage, destination, targetSize.width, targetSize.height, false);
+
+        if (targetSize.width == originalImage.getWidth() && targetSize.height == originalImage.getHeight()) {
+            PixelEngine.remap(originalImage, destination, PixelMapping.IDENTITY, null);
+            return destination;
         }
+        return resize(originalImage, quality, destination);
+    }
 
-        int imageHeight = image.getHeight(null);
-        int imageWidth = image.getWidth(null);
+    private static Image resize(BufferedImage image, ResizeQuality quality, BufferedImage destination) {
+        switch (quality) {
+            case LOW -> drawScaled(image, destination, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            case HIGH -> progressiveResize(image, destination);
+            case BOX -> Resampler.resample(image, destination, Resampler.Filter.BOX);
+            case BILINEAR -> Resampler.resample(image, destination, Resampler.Filter.TRIANGLE);
+            case BICUBIC -> Resampler.resample(image, destination, Resampler.Filter.MITCHELL);
+            case LANCZOS3 -> Resampler.resample(image, destination, Resampler.Filter.LANCZOS3);
+            case LINEAR_LIGHT -> Resampler.resample(image, destination, Resampler.Filter.MITCHELL, true);
+        }
+        return destination;
+    }
+
+    /**
+     * Returns the type of the images created by resizing: {@code TYPE_INT_RGB} for opaque images, and
+     * {@code TYPE_INT_ARGB} for all others.
+     */
+    private static int resizedType(BufferedImage image) {
+        return (image.getTransparency() == Transparency.OPAQUE) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+    }
+
+    /**
+     * Validates the target dimensions of a resize and calculates the missing one, if one of them is zero.
+     * @param imageWidth width of the image to be resized.
+     * @param imageHeight height of the image to be resized.
+     * @param targetWidth a target width, or zero to preserve the original proportions.
+     * @param targetHeight a target height, or zero to preserve the original proportions.
+     * @return the exact dimensions of the resized image.
+     */
+    static Dimension resizedSize(int imageWidth, int imageHeight, int targetWidth, int targetHeight) {
+        checkTargetSize(targetWidth, targetHeight);
 
         //Calculating targetWidth or targetHeight based on the original proportions, if one of the dimensions is 0.
         targetWidth = targetWidth == 0 ? (int) (imageWidth * ((double) targetHeight / imageHeight)) : targetWidth;
         targetHeight = targetHeight == 0 ? (int) (imageHeight * ((double) targetWidth / imageWidth)) : targetHeight;
 
-        if (targetWidth == imageWidth && targetHeight == imageHeight) {
-            return image;
+        return new Dimension(targetWidth, targetHeight);
+    }
+
+    private static void checkTargetSize(int targetWidth, int targetHeight) {
+        if (targetWidth < 0 || targetHeight < 0) {
+            throw new IllegalArgumentException("Target width and target height must be positive numbers.");
         }
 
-        return switch (quality) {
-            case LOW -> instantResize(image, targetWidth, targetHeight);
-            case HIGH -> progressiveResize(image, targetWidth, targetHeight);
-        };
+        if (targetWidth == 0 && targetHeight == 0) {
+            throw new IllegalArgumentException("Target width and target height cannot be both zero");
+        }
     }
 
     /**
-     * Creates a progressively resized version of the provided {@code Image}. Returns an image of a good quality but is time-consuming.
+     * Progressively resizes the provided image into the destination. Returns an image of a good quality but is time-consuming.
+     * Intermediate images are taken from and returned to the default {@code ScratchImagePool}.
      */
-    private static Image progressiveResize(Image image, int targetWidth, int targetHeight) {
-        BufferedImage newImage = (BufferedImage) image;
+    private static void progressiveResize(BufferedImage image, BufferedImage destination) {
+        ScratchImagePool pool = ScratchImagePool.getDefault();
+        BufferedImage newImage = image;
 
-        int type = (newImage.getTransparency() == Transparency.OPAQUE) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        int type = resizedType(image);
+        int targetWidth = destination.getWidth();
+        int targetHeight = destination.getHeight();
         int imageWidth = newImage.getWidth();
         int imageHeight = newImage.getHeight();
 
@@ -120,16 +473,15 @@ public class ImageUtil {
                 }
             }
 
-            BufferedImage temporaryImage = new BufferedImage(imageWidth, imageHeight, type);
-            Graphics2D graphics2D = temporaryImage.createGraphics();
-            graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-            graphics2D.drawImage(newImage, 0, 0, imageWidth, imageHeight, null);
-            graphics2D.dispose();
+            boolean lastStep = imageWidth == targetWidth && imageHeight == targetHeight;
+            BufferedImage temporaryImage = lastStep ? destination : pool.acquire(imageWidth, imageHeight, type);
+            drawScaled(newImage, temporaryImage, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
 
+            if (newImage != image) {
+                pool.release(newImage);
+            }
             newImage = temporaryImage;
-        } while (imageWidth != targetWidth || imageHeight != targetHeight);
-
-        return newImage;
+        } while (newImage != destination);
     }
 
     /**
@@ -138,24 +490,46 @@ public class ImageUtil {
     public static Image instantResize(Image image, int targetWidth, int targetHeight) {
         BufferedImage bufferedImage = (BufferedImage) image;
 
-        int type = (bufferedImage.getTransparency() == Transparency.OPAQUE) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
-
-        BufferedImage temporaryImage = new BufferedImage(targetWidth, targetHeight, type);
-        Graphics2D graphics2D = temporaryImage.createGraphics();
-        graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
-        graphics2D.drawImage(bufferedImage, 0, 0, targetWidth, targetHeight, null);
-        graphics2D.dispose();
+        BufferedImage temporaryImage = ScratchImagePool.getDefault().acquire(targetWidth, targetHeight, resizedType(bufferedImage));
+        drawScaled(bufferedImage, temporaryImage, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
 
         return temporaryImage;
     }
 
+    /**
+     * Draws the image scaled over the whole target. Translucent images are drawn over a cleared target, as the target
+     * may be a reused image. Drawing with {@code AlphaComposite.Src} instead would be considerably slower.
+     */
+    private static void drawScaled(BufferedImage image, BufferedImage target, Object interpolation) {
+        Graphics2D graphics2D = target.createGraphics();
+        if (image.getTransparency() != Transparency.OPAQUE) {
+            graphics2D.setComposite(AlphaComposite.Clear);
+            graphics2D.fillRect(0, 0, target.getWidth(), target.getHeight());
+            graphics2D.setComposite(AlphaComposite.SrcOver);
+        }
+        graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        graphics2D.drawImage(image, 0, 0, target.getWidth(), target.getHeight(), null);
+        graphics2D.dispose();
+    }
+
     /**
      * Creates an {@code Image} by horizontally flipping the image provided.
      * @param image an {@code Image} to be flipped.
      * @return a new {@code Image} which is a horizontally flipped version of the old one.
      */
     public static Image flipHorizontally(Image image) {
-        return flip(image, true, false);
+        return flip(image, true, false, null);
+    }
+
+    /**
+     * Flips the image provided horizontally, into the destination image.
+     * @param image an {@code Image} to be flipped.
+     * @param destination an image of the same size to write to, not sharing pixels with the input,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public static Image flipHorizontally(Image image, BufferedImage destination) {
+        return flip(image, true, false, destination);
     }
 
     /**
@@ -164,7 +538,18 @@ public class ImageUtil {
      * @return a new {@code Image} which is a vertically flipped version of the old one.
      */
     public static Image flipVertically(Image image) {
-        return flip(image, false, true);
+        return flip(image, false, true, null);
+    }
+
+    /**
+     * Flips the image provided vertically, into the destination image.
+     * @param image an {@code Image} to be flipped.
+     * @param destination an image of the same size to write to, not sharing pixels with the input,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public static Image flipVertically(Image image, BufferedImage destination) {
+        return flip(image, false, true, destination);
     }
 
     /**
@@ -172,25 +557,15 @@ public class ImageUtil {
      * @param image an {@code Image} to be flipped.
      * @param flipHorizontally should the image be flipped horizontally.
      * @param flipVertically should the image be flipped vertically.
-     * @return a new {@code Image} which is a flipped version of the old one.
+     * @param destination an image to write to, or {@code null} to create a new one.
+     * @return an {@code Image} which is a flipped version of the old one.
      */
-    private static Image flip(Image image, boolean flipHorizontally, boolean flipVertically) {
-        if (!flipHorizontally && !flipVertically) {
-            return image;
-        }
-
+    private static Image flip(Image image, boolean flipHorizontally, boolean flipVertically, BufferedImage destination) {
         BufferedImage originalImage = (BufferedImage) image;
-        BufferedImage newImage = deepCopy((BufferedImage) image);
-        int width = newImage.getWidth();
-        int height = newImage.getHeight();
-
-        forEachPixel(newImage, point -> {
-            int x = flipHorizontally ? width - point.x - 1 : point.x;
-            int y = flipVertically ? height - point.y - 1 : point.y;
-            return new Color(originalImage.getRGB(x, y));
-        });
+        int width = originalImage.getWidth();
+        int height = originalImage.getHeight();
 
-        return newImage;
+        return remap(originalImage, PixelMapping.flip(width, height, flipHorizontally, flipVertically), width, height, destination);
     }
 
     /**
@@ -199,16 +574,22 @@ public class ImageUtil {
      * @return a new rotated {@code Image}.
      */
     public static Image rotateBy90Degrees(Image image) {
+        return rotateBy90Degrees(image, null);
+    }
+
+    /**
+     * Rotates the image provided by 90°, into the destination image.
+     * @param image an {@code Image} to be rotated.
+     * @param destination an image with swapped dimensions to write to, not sharing pixels with the input,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public static Image rotateBy90Degrees(Image image, BufferedImage destination) {
         BufferedImage originalImage = (BufferedImage) image;
         int width = originalImage.getHeight();
         int height = originalImage.getWidth();
 
-        BufferedImage newImage = new BufferedImage(width, height, originalImage.getType());
-
-        forEachPixel(newImage, point ->
-                new Color(originalImage.getRGB(point.y, width - 1 - point.x)));
-
-        return newImage;
+        return remap(originalImage, PixelMapping.rotation90(originalImage.getHeight()), width, height, destination);
     }
 
     /**
@@ -217,7 +598,18 @@ public class ImageUtil {
      * @return a new rotated {@code Image}.
      */
     public static Image rotateBy180Degrees(Image image) {
-        return flip(image, true, true);
+        return flip(image, true, true, null);
+    }
+
+    /**
+     * Rotates the image provided by 180°, into the destination image.
+     * @param image an {@code Image} to be rotated.
+     * @param destination an image of the same size to write to, not sharing pixels with the input,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public static Image rotateBy180Degrees(Image image, BufferedImage destination) {
+        return flip(image, true, true, destination);
     }
 
     /**
@@ -226,17 +618,68 @@ public class ImageUtil {
      * @return a new rotated {@code Image}.
      */
     public static Image rotateBy270Degrees(Image image) {
+        return rotateBy270Degrees(image, null);
+    }
+
+    /**
+     * Rotates the image provided by 270°, into the destination image.
+     * @param image an {@code Image} to be rotated.
+     * @param destination an image with swapped dimensions to write to, not sharing pixels with the input,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public static Image rotateBy270Degrees(Image image, BufferedImage destination) {
         BufferedImage originalImage = (BufferedImage) image;
         int width = originalImage.getHeight();
         int height = originalImage.getWidth();
 
-        BufferedImage newImage = new BufferedImage(width, height, originalImage.getType());
+        return remap(originalImage, PixelMapping.rotation270(originalImage.getWidth()), width, height, destination);
+    }
 
-        forEachPixel(newImage, point ->
-                new Color(originalImage.getRGB(height - 1 - point.y, point.x)));
+    /**
+     * Repaints the destination, or a new image taken from the default {@code ScratchImagePool}, with the pixels
+     * of the original image selected by the mapping.
+     */
+    private static Image remap(BufferedImage originalImage, PixelMapping mapping, int width, int height, BufferedImage destination) {
+        BufferedImage newImage = destinationImage(originalImage, destination, width, height, false);
+        PixelEngine.remap(originalImage, newImage, mapping, null);
 
         return newImage;
     }
+
+    /**
+     * Validates the destination of an operation, or provides a new image compatible with the original one
+     * if there is none.
+     * @param originalImage the processed image.
+     * @param destination an image to write the result to, or {@code null}.
+     * @param width width of the result.
+     * @param height height of the result.
+     * @param inPlace can the result be written over the processed image.
+     * @return the destination, or a new image from the default {@code ScratchImagePool}.
+     */
+    static BufferedImage destinationImage(BufferedImage originalImage, BufferedImage destination, int width, int height, boolean inPlace) {
+        if (destination == null) {
+            return ScratchImagePool.getDefault().acquireCompatible(originalImage, width, height);
+        }
+        checkDestination(originalImage, destination, width, height, inPlace);
+        return destination;
+    }
+
+    private static void checkDestination(BufferedImage originalImage, BufferedImage destination, int width, int height, boolean inPlace) {
+        if (destination == null) {
+            throw new IllegalArgumentException("Destination image cannot be null");
+        }
+
+        if (destination.getWidth() != width || destination.getHeight() != height) {
+            throw new IllegalArgumentException("Destination image must be " + width + "x" + height + ", but is "
+                    + destination.getWidth() + "x" + destination.getHeight());
+        }
+
+        if (!inPlace && destination.getRaster().getDataBuffer() == originalImage.getRaster().getDataBuffer()) {
+            throw new IllegalArgumentException("Destination image cannot share pixels with the processed image");
+        }
+    }
+
     /**
      * Creates a cropped version of an {@code Image}. Parameters specify a portion of the image to be cropped from each side.
      * The sum of top and bottom crop cannot be greater than the image height, as well as the sum of right and left crop
@@ -249,47 +692,132 @@ public class ImageUtil {
      * @return a new {@code Image} which is a cropped version of the old one.
      */
     public static Image crop(Image image, int top, int right, int bottom, int left) {
+        return crop(image, top, right, bottom, left, null);
+    }
+
+    /**
+     * Crops the image provided into the destination image. Parameters are the same as in
+     * {@link #crop(Image, int, int, int, int)}.
+     * @param image an {@code Image} to be cropped.
+     * @param top a value to be cropped at the top.
+     * @param right a value to be cropped on the right side.
+     * @param bottom a value to be cropped at the bottom.
+     * @param left a value to be cropped on the left side.
+     * @param destination an image of the cropped size to write to, not sharing pixels with the input,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public static Image crop(Image image, int top, int right, int bottom, int left, BufferedImage destination) {
         BufferedImage originalImage = (BufferedImage) image;
-        int originalWidth = originalImage.getWidth();
-        int originalHeight = originalImage.getHeight();
+        return crop(originalImage, cropBounds(originalImage.getWidth(), originalImage.getHeight(), top, right, bottom, left), destination);
+    }
 
+    /**
+     * Creates a cropped version of an {@code Image}. Parameters specify a portion of the image to be cropped from each side,
+     * as a percentage of the appropriate image dimension (values between 0 and 100). The sum of top and bottom crop,
+     * as well as the sum of right and left crop, cannot be over 100.
+     * @param image an {@code Image} to be cropped.
+     * @param top a value to be cropped at the top.
+     * @param right a value to be cropped on the right side.
+     * @param bottom a value to be cropped at the bottom.
+     * @param left a value to be cropped on the left side.
+     * @return a new {@code Image} which is a cropped version of the old one.
+     */
+    public static Image cropByPercentage(Image image, int top, int right, int bottom, int left) {
+        return cropByPercentage(image, top, right, bottom, left, null);
+    }
+
+    /**
+     * Crops the image provided into the destination image. Parameters are the same as in
+     * {@link #cropByPercentage(Image, int, int, int, int)}.
+     * @param image an {@code Image} to be cropped.
+     * @param top a value to be cropped at the top.
+     * @param right a value to be cropped on the right side.
+     * @param bottom a value to be cropped at the bottom.
+     * @param left a value to be cropped on the left side.
+     * @param destination an image of the cropped size to write to, not sharing pixels with the input,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public static Image cropByPercentage(Image image, int top, int right, int bottom, int left, BufferedImage destination) {
+        BufferedImage originalImage = (BufferedImage) image;
+        return crop(originalImage, percentageCropBounds(originalImage.getWidth(), originalImage.getHeight(), top, right, bottom, left), destination);
+    }
+
+    /**
+     * Creates a view of a cropped area of an {@code Image}, without copying any pixels. Parameters are the same as in
+     * {@link #crop(Image, int, int, int, int)}. The pixels are copied only when the view is written to or materialized.
+     * @param image an {@code Image} to be cropped.
+     * @param top a value to be cropped at the top.
+     * @param right a value to be cropped on the right side.
+     * @param bottom a value to be cropped at the bottom.
+     * @param left a value to be cropped on the left side.
+     * @return a {@code CropView} sharing the pixels of the original image.
+     */
+    public static CropView cropView(Image image, int top, int right, int bottom, int left) {
+        BufferedImage originalImage = (BufferedImage) image;
+        return new CropView(originalImage, cropBounds(originalImage.getWidth(), originalImage.getHeight(), top, right, bottom, left));
+    }
+
+    /**
+     * Creates a view of a cropped area of an {@code Image}, without copying any pixels. Parameters are the same as in
+     * {@link #cropByPercentage(Image, int, int, int, int)}. The pixels are copied only when the view is written to or materialized.
+     * @param image an {@code Image} to be cropped.
+     * @param top a value to be cropped at the top.
+     * @param right a value to be cropped on the right side.
+     * @param bottom a value to be cropped at the bottom.
+     * @param left a value to be cropped on the left side.
+     * @return a {@code CropView} sharing the pixels of the original image.
+     */
+    public static CropView cropViewByPercentage(Image image, int top, int right, int bottom, int left) {
+        BufferedImage originalImage = (BufferedImage) image;
+        return new CropView(originalImage, percentageCropBounds(originalImage.getWidth(), originalImage.getHeight(), top, right, bottom, left));
+    }
+
+    /**
+     * Copies the specified area of an image into the destination, or a new image.
+     */
+    private static Image crop(BufferedImage originalImage, Rectangle bounds, BufferedImage destination) {
+        return remap(originalImage, PixelMapping.translation(bounds.x, bounds.y), bounds.width, bounds.height, destination);
+    }
+
+    /**
+     * Validates the cropping parameters and calculates the area of an image which remains after cropping.
+     * @param width width of the image to be cropped.
+     * @param height height of the image to be cropped.
+     * @param top a value to be cropped at the top.
+     * @param right a value to be cropped on the right side.
+     * @param bottom a value to be cropped at the bottom.
+     * @param left a value to be cropped on the left side.
+     * @return a {@code Rectangle} describing the remaining area.
+     */
+    static Rectangle cropBounds(int width, int height, int top, int right, int bottom, int left) {
         if (top < 0 || right < 0 || bottom < 0 || left < 0) {
             throw new IllegalArgumentException("Cropping parameters value cannot be less than 0.");
         }
 
-        if (top + bottom > originalHeight) {
+        if (top + bottom > height) {
             throw new IllegalArgumentException("Cannot crop image by more than its total height - invalid top and bottom parameters: " + top + ", " + bottom);
         }
 
-        if (right + left > originalWidth) {
+        if (right + left > width) {
             throw new IllegalArgumentException("Cannot crop image by more than its total width - invalid right and left parameters: " + right + ", " + left);
         }
 
-        int newWidth = originalWidth - right - left;
-        int newHeight = originalHeight - top - bottom;
-        BufferedImage newImage = new BufferedImage(newWidth, newHeight, originalImage.getType());
-
-        forEachPixel(newImage, point -> {
-            int originalX = point.x + left;
-            int originalY = point.y + top;
-            return new Color(originalImage.getRGB(originalX, originalY));
-        });
-
-        return newImage;
+        return new Rectangle(left, top, width - right - left, height - top - bottom);
     }
 
     /**
-     * Creates a cropped version of an {@code Image}. Parameters specify a portion of the image to be cropped from each side,
-     * as a percentage of the appropriate image dimension (values between 0 and 100). The sum of top and bottom crop,
-     * as well as the sum of right and left crop, cannot be over 100.
-     * @param image an {@code Image} to be cropped.
-     * @param top a value to be cropped at the top.
-     * @param right a value to be cropped on the right side.
-     * @param bottom a value to be cropped at the bottom.
-     * @param left a value to be cropped on the left side.
-     * @return a new {@code Image} which is a cropped version of the old one.
+     * Validates the percentage cropping parameters and calculates the area of an image which remains after cropping.
+     * @param width width of the image to be cropped.
+     * @param height height of the image to be cropped.
+     * @param top a percentage to be cropped at the top.
+     * @param right a percentage to be cropped on the right side.
+     * @param bottom a percentage to be cropped at the bottom.
+     * @param left a percentage to be cropped on the left side.
+     * @return a {@code Rectangle} describing the remaining area.
      */
-    public static Image cropByPercentage(Image image, int top, int right, int bottom, int left) {
+    static Rectangle percentageCropBounds(int width, int height, int top, int right, int bottom, int left) {
         if (top < 0 || right < 0 || bottom < 0 || left < 0) {
             throw new IllegalArgumentException("Cropping parameters value must be between 0 and 100.");
         }
@@ -306,16 +834,12 @@ public class ImageUtil {
             throw new IllegalArgumentException("Cannot crop image by more than 100% - invalid right and left parameters: " + right + ", " + left);
         }
 
-        BufferedImage originalImage = (BufferedImage) image;
-        int originalWidth = originalImage.getWidth();
-        int originalHeight = originalImage.getHeight();
-
-        int topCrop = (int) Math.rint(originalHeight * (double) top/100);
-        int rightCrop = (int) Math.rint(originalWidth * (double) right/100);
-        int bottomCrop = (int) Math.rint(originalHeight * (double) bottom/100);
-        int leftCrop = (int) Math.rint(originalWidth * (double) left/100);
+        int topCrop = (int) Math.rint(height * (double) top/100);
+        int rightCrop = (int) Math.rint(width * (double) right/100);
+        int bottomCrop = (int) Math.rint(height * (double) bottom/100);
+        int leftCrop = (int) Math.rint(width * (double) left/100);
 
-        return crop(image, topCrop, rightCrop, bottomCrop, leftCrop);
+        return cropBounds(width, height, topCrop, rightCrop, bottomCrop, leftCrop);
     }
 
     /**
@@ -324,12 +848,20 @@ public class ImageUtil {
      * @return a new {@code Image} which is an inverted version of the original one.
      */
     public static Image invertColors(Image image) {
-        BufferedImage newImage = deepCopy((BufferedImage) image);
+        return invertColors(image, null);
+    }
 
-        forEachPixel(newImage, point -> {
-            Color xyColor = new Color(newImage.getRGB(point.x, point.y), true);
-            return ColorUtil.inverted(xyColor);
-        });
+    /**
+     * Inverts all colors of an {@code Image}, writing the result into the destination image.
+     * @param image an {@code Image} to be altered.
+     * @param destination an image of the same size to write to, which may be the input itself,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public static Image invertColors(Image image, BufferedImage destination) {
+        BufferedImage originalImage = (BufferedImage) image;
+        BufferedImage newImage = destinationImage(originalImage, destination, originalImage.getWidth(), originalImage.getHeight(), true);
+        PixelEngine.transformRows(originalImage, newImage, ColorKernels.bulk()::invert);
 
         return newImage;
     }
@@ -340,16 +872,40 @@ public class ImageUtil {
      * @return a new {@code Image} which is a grayscale version of the original one.
      */
     public static Image convertToGrayscale(Image image) {
-        BufferedImage newImage = deepCopy((BufferedImage) image);
+        return convertToGrayscale(image, null);
+    }
 
-        forEachPixel(newImage, point -> {
-            Color xyColor = new Color(newImage.getRGB(point.x, point.y), true);
-            return ColorUtil.grayscale(xyColor);
-        });
+    /**
+     * Converts the {@code Image} to grayscale, writing the result into the destination image.
+     * @param image an {@code Image} to be altered.
+     * @param destination an image of the same size to write to, which may be the input itself,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public static Image convertToGrayscale(Image image, BufferedImage destination) {
+        BufferedImage originalImage = (BufferedImage) image;
+        BufferedImage newImage = destinationImage(originalImage, destination, originalImage.getWidth(), originalImage.getHeight(), true);
+        PixelEngine.transformRows(originalImage, newImage, ColorKernels.bulk()::grayscale);
 
         return newImage;
     }
 
+    /**
+     * Converts the {@code Image} to grayscale, optionally storing the result with a single byte per pixel.
+     * A compact result is a custom 8-bit gray image, with an 8-bit alpha sample per pixel if the original image has
+     * an alpha channel, taking up to 4 times less memory and encoded as a grayscale image. It is drawn, reported by
+     * {@code getRGB} and processed by the other methods of this class as the same colors as the full result.
+     * @param image an {@code Image} to be altered.
+     * @param compact should the result use one byte per pixel for the gray levels.
+     * @return a new {@code Image} which is a grayscale version of the original one.
+     */
+    public static Image convertToGrayscale(Image image, boolean compact) {
+        if (!compact) {
+            return convertToGrayscale(image);
+        }
+        return PixelEngine.toGrayscale((BufferedImage) image);
+    }
+
     /**
      * Identifies a specified color in an {@code Image} and replaces it with another. The tolerance threshold is set to 0,
      * therefore only the pixels with the exact value of the original color will be altered, while all others stay unchanged.
@@ -370,32 +926,82 @@ public class ImageUtil {
      * @param newColor a target {@code Color} to replace the original one.
      * @param threshold an acceptable difference from the original color to still qualify for a replacement. The higher
      *                  the threshold, the bigger range of the color values are going to be replaced.
-     * @return an altered version of an {@code Image} with the original color replaced with the new one.
+     * @return an altered version of an {@code Image} with the original color replaced with the new one. For images
+     * with an {@code IndexColorModel} only the palette is altered, and the resulting image shares its pixel data with the input.
+     * @see RecolorOperation
      */
     public static Image replaceColor(Image image, Color originalColor, Color newColor, int threshold) {
-        BufferedImage newImage = deepCopy((BufferedImage) image);
+        return replaceColor(image, originalColor, newColor, threshold, null);
+    }
 
-        forEachPixel(newImage, point -> {
-            Color xyColor = new Color(newImage.getRGB(point.x, point.y), true);
-            return (ColorUtil.isColorWithinRange(xyColor, originalColor, threshold))
-                    ? ColorUtil.semiTransparent(newColor, xyColor.getAlpha()) : xyColor;
-        });
+    /**
+     * Identifies a specified color in an {@code Image} and replaces it with another, as described in
+     * {@link #replaceColor(Image, Color, Color, int)}, writing the result into the destination image.
+     * @param image an {@code Image} to be altered.
+     * @param originalColor a {@code Color} to be replaced.
+     * @param newColor a target {@code Color} to replace the original one.
+     * @param threshold an acceptable difference from the original color to still qualify for a replacement.
+     * @param destination an image of the same size to write to, which may be the input itself,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public static Image replaceColor(Image image, Color originalColor, Color newColor, int threshold, BufferedImage destination) {
+        return RecolorOperation.of(originalColor, newColor, threshold).apply(image, destination);
+    }
 
-        return newImage;
+    /**
+     * Replaces several colors of an {@code Image} in a single pass, as if {@link #replaceColor(Image, Color, Color, int)}
+     * was called for every entry of the map, except that replaced pixels are not tested against the remaining colors.
+     * A pixel within the threshold of several original colors is replaced according to the first matching entry,
+     * in the iteration order of the map. If the ranges of the original colors overlap, the map must have a defined
+     * iteration order, such as a {@code LinkedHashMap}, as that of a {@code HashMap} depends on the hash codes of
+     * the colors.
+     * @param image an {@code Image} to be altered.
+     * @param colors a map of the colors to be replaced to their new colors, of up to 32 entries.
+     * @param threshold an acceptable difference from the original colors to still qualify for a replacement.
+     * @return a new altered version of an {@code Image}. For images with an {@code IndexColorModel} only the palette is altered,
+     * and the resulting image shares its pixel data with the input.
+     * @see #replaceColors(Image, List)
+     */
+    public static Image replaceColors(Image image, Map<Color, Color> colors, int threshold) {
+        return RecolorOperation.of(colors, threshold).apply(image);
+    }
+
+    /**
+     * Replaces several colors of an {@code Image} in a single pass, each within its own threshold, as if
+     * {@link #replaceColor(Image, Color, Color, int)} was called for every replacement, except that replaced pixels
+     * are not tested against the remaining colors. A pixel within the threshold of several original colors is
+     * replaced according to the first matching replacement of the list.
+     * @param image an {@code Image} to be altered.
+     * @param replacements the replacements to be performed, of up to 32 entries.
+     * @return a new altered version of an {@code Image}. For images with an {@code IndexColorModel} only the palette is altered,
+     * and the resulting image shares its pixel data with the input.
+     */
+    public static Image replaceColors(Image image, List<RecolorOperation.Replacement> replacements) {
+        return RecolorOperation.of(replacements).apply(image);
     }
 
     /**
-     * Loops through each pixel of an image and repaints it according to the provided function.
+     * Adjusts the channel values of an {@code Image}, such as its brightness, contrast or gamma.
+     * @param image an {@code Image} to be altered.
+     * @param adjustment a {@code ColorAdjustment} to be applied to every pixel.
+     * @return a new altered version of an {@code Image}. For images with an {@code IndexColorModel} only the palette is altered,
+     * and the resulting image shares its pixel data with the input.
      */
-    private static void forEachPixel(BufferedImage newImage, Function<Point, Color> action) {
-        int width = newImage.getWidth();
-        int height = newImage.getHeight();
+    public static Image adjust(Image image, ColorAdjustment adjustment) {
+        return adjustment.apply(image);
+    }
 
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                newImage.setRGB(x, y, action.apply(new Point(x, y)).getRGB());
-            }
-        }
+    /**
+     * Adjusts the channel values of an {@code Image}, writing the result into the destination image.
+     * @param image an {@code Image} to be altered.
+     * @param adjustment a {@code ColorAdjustment} to be applied to every pixel.
+     * @param destination an image of the same size to write to, which may be the input itself,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public static Image adjust(Image image, ColorAdjustment adjustment, BufferedImage destination) {
+        return adjustment.apply(image, destination);
     }
 
 }
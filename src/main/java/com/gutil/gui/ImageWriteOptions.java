@@ -0,0 +1,56 @@
+package com.gutil.gui;
+
+/**
+ * Encoding settings used by the {@code ImageUtil.writeImage} methods. Settings not applicable to the written format
+ * are ignored, and settings not specified are left at the defaults of the format's {@code ImageWriter}.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public class ImageWriteOptions {
+
+    private int deflateLevel = -1;
+    private float jpegQuality = Float.NaN;
+
+    /**
+     * Sets the PNG compression level, from 0 (no compression, fastest) to 9 (best compression, slowest).
+     * @param level the deflate level.
+     * @return this {@code ImageWriteOptions} instance.
+     */
+    public ImageWriteOptions setDeflateLevel(int level) {
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("Deflate level: " + level + " - out of range.");
+        }
+        this.deflateLevel = level;
+        return this;
+    }
+
+    /**
+     * Sets the JPEG quality, from 0 (smallest file) to 1 (best quality).
+     * @param quality the JPEG quality.
+     * @return this {@code ImageWriteOptions} instance.
+     */
+    public ImageWriteOptions setJpegQuality(float quality) {
+        if (!(quality >= 0 && quality <= 1)) {
+            throw new IllegalArgumentException("JPEG quality: " + quality + " - out of range.");
+        }
+        this.jpegQuality = quality;
+        return this;
+    }
+
+    /**
+     * Returns the PNG compression level.
+     * @return the deflate level, or -1 if not specified.
+     */
+    public int getDeflateLevel() {
+        return deflateLevel;
+    }
+
+    /**
+     * Returns the JPEG quality.
+     * @return the JPEG quality, or {@code NaN} if not specified.
+     */
+    public float getJpegQuality() {
+        return jpegQuality;
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.gutil.gui;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-thread pool of {@code ImageWriter} instances, one per format, used by the {@code ImageUtil.writeImage} methods.
+ * Looking up a writer through the {@code ImageIO} service registry and creating it costs more than encoding a small
+ * image, so every thread keeps and resets the writers it used instead. As in {@code ImageIO.write}, only a writer
+ * whose provider can encode the layout of the image is used.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+final class ImageWriterPool {
+
+    private static final ThreadLocal<Map<String, List<ImageWriter>>> WRITERS = ThreadLocal.withInitial(HashMap::new);
+
+    private ImageWriterPool() {
+    }
+
+    /**
+     * Returns a writer of the format owned by the calling thread, which can encode the image.
+     * @param formatName an informal name of the format, such as {@code "png"}.
+     * @param image an image to be encoded.
+     * @return the pooled {@code ImageWriter}, or {@code null} if no writer of the format can encode the image.
+     */
+    static ImageWriter writer(String formatName, RenderedImage image) {
+        ImageTypeSpecifier type = ImageTypeSpecifier.createFromRenderedImage(image);
+        List<ImageWriter> writers = WRITERS.get().computeIfAbsent(formatName.toLowerCase(Locale.ROOT), key -> new ArrayList<>());
+        for (ImageWriter writer : writers) {
+            if (canEncode(writer, type)) {
+                return writer;
+            }
+        }
+
+        Iterator<ImageWriter> availableWriters = ImageIO.getImageWriters(type, formatName);
+        if (!availableWriters.hasNext()) {
+            return null;
+        }
+        ImageWriter writer = availableWriters.next();
+        writers.add(writer);
+        return writer;
+    }
+
+    private static boolean canEncode(ImageWriter writer, ImageTypeSpecifier type) {
+        ImageWriterSpi provider = writer.getOriginatingProvider();
+        return provider == null || provider.canEncodeImage(type);
+    }
+
+    /**
+     * Encodes the image with a pooled writer, and resets the writer afterwards.
+     * @param writer a writer returned by {@link #writer(String, RenderedImage)}.
+     * @param image an image to be encoded.
+     * @param options encoding settings, or {@code null} to use the writer defaults.
+     * @param output a stream to write to.
+     * @throws IOException if encoding fails.
+     */
+    static void write(ImageWriter writer, RenderedImage image, ImageWriteOptions options, ImageOutputStream output) throws IOException {
+        try {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), writeParam(writer, options));
+            output.flush();
+        } finally {
+            writer.reset();
+        }
+    }
+
+    private static ImageWriteParam writeParam(ImageWriter writer, ImageWriteOptions options) {
+        if (options == null) {
+            return null;
+        }
+
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (!param.canWriteCompressed()) {
+            return param;
+        }
+
+        if (options.getDeflateLevel() >= 0 && supportsFormat(writer, "png")) {
+            //The PNG writer uses the deflate level of (int) (9 * (1 - quality)).
+            setCompressionQuality(param, Math.max(0, 1 - (options.getDeflateLevel() + 0.01f) / 9));
+        } else if (!Float.isNaN(options.getJpegQuality()) && supportsFormat(writer, "jpeg")) {
+            setCompressionQuality(param, options.getJpegQuality());
+        }
+        return param;
+    }
+
+    private static void setCompressionQuality(ImageWriteParam param, float quality) {
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        if (param.getCompressionType() == null) {
+            param.setCompressionType(param.getCompressionTypes()[0]);
+        }
+        param.setCompressionQuality(quality);
+    }
+
+    private static boolean supportsFormat(ImageWriter writer, String formatName) {
+        ImageWriterSpi provider = writer.getOriginatingProvider();
+        if (provider == null) {
+            return false;
+        }
+        for (String name : provider.getFormatNames()) {
+            if (name.equalsIgnoreCase(formatName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,289 @@
+package com.gutil.gui;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Image of packed ARGB pixels stored outside the Java heap, in direct or memory-mapped buffers, so that very large
+ * images neither count towards the heap size nor get copied by the garbage collector. The pixels are split into chunks
+ * of whole rows, each smaller than 1 GB, which lets an image exceed the 2 GB limit of a single buffer.
+ * Color operations are performed in place, row by row, with the same kernels as the {@code ImageUtil} methods.
+ * Regions can be copied to a {@code BufferedImage} for display.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public class OffHeapImage {
+
+    /**
+     * Maximum size of a single buffer, in bytes.
+     */
+    private static final int MAX_CHUNK_BYTES = 1 << 30;
+
+    private final int width;
+    private final int height;
+    private final int chunkRows;
+    private final IntBuffer[] chunks;
+
+    private OffHeapImage(int width, int height, int maxChunkBytes, ChunkAllocator allocator) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image width and height must be positive numbers.");
+        }
+        if (4L * width > maxChunkBytes) {
+            throw new IllegalArgumentException("Image width: " + width + " - out of range.");
+        }
+
+        this.width = width;
+        this.height = height;
+        this.chunkRows = Math.min(height, maxChunkBytes / (4 * width));
+        this.chunks = new IntBuffer[(height + chunkRows - 1) / chunkRows];
+
+        long chunkBytes = 4L * width * chunkRows;
+        for (int i = 0; i < chunks.length; i++) {
+            int rows = Math.min(chunkRows, height - i * chunkRows);
+            ByteBuffer buffer = allocator.allocate(i * chunkBytes, 4 * width * rows);
+            chunks[i] = buffer.order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+
+    /**
+     * Creates a fully transparent image in direct memory, released when the image is garbage collected.
+     * @param width width of the image.
+     * @param height height of the image.
+     * @return a new {@code OffHeapImage}.
+     */
+    public static OffHeapImage allocate(int width, int height) {
+        return allocate(width, height, MAX_CHUNK_BYTES);
+    }
+
+    static OffHeapImage allocate(int width, int height, int maxChunkBytes) {
+        try {
+            return new OffHeapImage(width, height, maxChunkBytes, (position, size) -> ByteBuffer.allocateDirect(size));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates an image memory-mapped from a file of raw packed ARGB pixels, in native byte order, stored row by row.
+     * The file is created or extended if needed, and all changes to the image are written back to it.
+     * The operating system pages the pixels in and out, so the image may be larger than the available memory.
+     * @param file a {@code Path} of the file holding the pixels.
+     * @param width width of the image.
+     * @param height height of the image.
+     * @return a new {@code OffHeapImage}, or {@code null} if the file cannot be mapped.
+     */
+    public static OffHeapImage map(Path file, int width, int height) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new OffHeapImage(width, height, MAX_CHUNK_BYTES,
+                    (position, size) -> channel.map(FileChannel.MapMode.READ_WRITE, position, size));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates an image in direct memory holding a copy of the provided {@code Image}.
+     * @param image an {@code Image} to be copied.
+     * @return a new {@code OffHeapImage}.
+     */
+    public static OffHeapImage copyOf(Image image) {
+        BufferedImage bufferedImage = (BufferedImage) image;
+        OffHeapImage offHeapImage = allocate(bufferedImage.getWidth(), bufferedImage.getHeight());
+        offHeapImage.setRegion(bufferedImage, 0, 0);
+        return offHeapImage;
+    }
+
+    /**
+     * Returns the width of the image.
+     * @return the image width in pixels.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the image.
+     * @return the image height in pixels.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns a single pixel.
+     * @param x horizontal coordinate of the pixel.
+     * @param y vertical coordinate of the pixel.
+     * @return the packed ARGB value of the pixel.
+     */
+    public int getRGB(int x, int y) {
+        checkBounds(x, y, 1, 1);
+        return chunks[y / chunkRows].get((y % chunkRows) * width + x);
+    }
+
+    /**
+     * Sets a single pixel.
+     * @param x horizontal coordinate of the pixel.
+     * @param y vertical coordinate of the pixel.
+     * @param argb the packed ARGB value of the pixel.
+     */
+    public void setRGB(int x, int y, int argb) {
+        checkBounds(x, y, 1, 1);
+        chunks[y / chunkRows].put((y % chunkRows) * width + x, argb);
+    }
+
+    /**
+     * Reads a whole row of packed ARGB pixels.
+     * @param y index of the row.
+     * @param row an array to be filled, at least as long as the image width.
+     */
+    public void readRow(int y, int[] row) {
+        checkBounds(0, y, width, 1);
+        chunks[y / chunkRows].get((y % chunkRows) * width, row, 0, width);
+    }
+
+    /**
+     * Writes a whole row of packed ARGB pixels.
+     * @param y index of the row.
+     * @param row pixels to be written, at least as many as the image width.
+     */
+    public void writeRow(int y, int[] row) {
+        checkBounds(0, y, width, 1);
+        chunks[y / chunkRows].put((y % chunkRows) * width, row, 0, width);
+    }
+
+    /**
+     * Copies the whole image to the heap.
+     * @return a new {@code TYPE_INT_ARGB} {@code BufferedImage}.
+     */
+    public BufferedImage toBufferedImage() {
+        return toBufferedImage(new Rectangle(width, height));
+    }
+
+    /**
+     * Copies a region of the image to the heap, for example to display the visible part of a huge image.
+     * @param region the area to be copied, within the image bounds.
+     * @return a new {@code TYPE_INT_ARGB} {@code BufferedImage} of the region size.
+     */
+    public BufferedImage toBufferedImage(Rectangle region) {
+        checkBounds(region.x, region.y, region.width, region.height);
+        BufferedImage image = new BufferedImage(region.width, region.height, BufferedImage.TYPE_INT_ARGB);
+
+        PixelEngine.forEachBand(region.width, region.height, true, (fromY, toY) -> {
+            int[] row = new int[region.width];
+            for (int y = fromY; y < toY; y++) {
+                int sourceY = region.y + y;
+                chunks[sourceY / chunkRows].get((sourceY % chunkRows) * width + region.x, row, 0, region.width);
+                PixelEngine.writeRow(image, y, row);
+            }
+        });
+        return image;
+    }
+
+    /**
+     * Copies an {@code Image} into this image, with its top left corner at the specified position.
+     * @param image an {@code Image} to be copied, fitting within this image.
+     * @param x horizontal position of the copied image.
+     * @param y vertical position of the copied image.
+     * @return this {@code OffHeapImage} instance.
+     */
+    public OffHeapImage setRegion(Image image, int x, int y) {
+        BufferedImage bufferedImage = (BufferedImage) image;
+        int regionWidth = bufferedImage.getWidth();
+        checkBounds(x, y, regionWidth, bufferedImage.getHeight());
+
+        PixelEngine.forEachBand(regionWidth, bufferedImage.getHeight(), PixelEngine.supportsConcurrentRows(bufferedImage), (fromY, toY) -> {
+            int[] row = new int[regionWidth];
+            for (int sourceY = fromY; sourceY < toY; sourceY++) {
+                int targetY = y + sourceY;
+                PixelEngine.readRow(bufferedImage, sourceY, row);
+                chunks[targetY / chunkRows].put((targetY % chunkRows) * width + x, row, 0, regionWidth);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Inverts the colors of the image in place, as described in {@link ImageUtil#invertColors(Image)}.
+     * @return this {@code OffHeapImage} instance.
+     */
+    public OffHeapImage invertColors() {
+        return transformRows(ColorKernels.bulk()::invert);
+    }
+
+    /**
+     * Converts the image to grayscale in place, as described in {@link ImageUtil#convertToGrayscale(Image)}.
+     * @return this {@code OffHeapImage} instance.
+     */
+    public OffHeapImage convertToGrayscale() {
+        return transformRows(ColorKernels.bulk()::grayscale);
+    }
+
+    /**
+     * Adjusts the channel values of the image in place, as described in {@link ImageUtil#adjust(Image, ColorAdjustment)}.
+     * @param adjustment a {@code ColorAdjustment} to be applied to every pixel.
+     * @return this {@code OffHeapImage} instance.
+     */
+    public OffHeapImage adjust(ColorAdjustment adjustment) {
+        return transformRows(adjustment.rowKernel());
+    }
+
+    /**
+     * Replaces a color in place, as described in {@link ImageUtil#replaceColor(Image, Color, Color, int)}.
+     * @param originalColor a {@code Color} to be replaced.
+     * @param newColor a target {@code Color} to replace the original one.
+     * @param threshold an acceptable difference from the original color to still qualify for a replacement.
+     * @return this {@code OffHeapImage} instance.
+     */
+    public OffHeapImage replaceColor(Color originalColor, Color newColor, int threshold) {
+        return transformRows(ColorKernels.replaceRows(originalColor, newColor, threshold));
+    }
+
+    /**
+     * Applies the kernel to every row, copying the rows through a small heap buffer local to each band.
+     */
+    private OffHeapImage transformRows(PixelEngine.RowKernel kernel) {
+        PixelEngine.forEachBand(width, height, true, (fromY, toY) -> {
+            int[] row = new int[width];
+            for (int y = fromY; y < toY; y++) {
+                IntBuffer chunk = chunks[y / chunkRows];
+                int index = (y % chunkRows) * width;
+                chunk.get(index, row, 0, width);
+                kernel.apply(row, 0, row, 0, width);
+                chunk.put(index, row, 0, width);
+            }
+        });
+        return this;
+    }
+
+    private void checkBounds(int x, int y, int regionWidth, int regionHeight) {
+        if (x < 0 || y < 0 || regionWidth < 0 || regionHeight < 0
+                || (long) x + regionWidth > width || (long) y + regionHeight > height) {
+            throw new IllegalArgumentException("Region [" + x + ", " + y + ", " + regionWidth + "x" + regionHeight
+                    + "] out of image bounds: " + width + "x" + height);
+        }
+    }
+
+    /**
+     * Creates the buffer of a single chunk.
+     */
+    @FunctionalInterface
+    private interface ChunkAllocator {
+
+        /**
+         * @param position offset of the chunk from the start of the image, in bytes.
+         * @param size size of the chunk, in bytes.
+         */
+        ByteBuffer allocate(long position, int size) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.gutil.gui;
+
+import java.awt.geom.AffineTransform;
+
+/**
+ * Enum of the eight orientations an image can be displayed in, reachable by flips and rotations by multiples of 90°,
+ * the same as the orientations stored in EXIF metadata. Every orientation is an optional horizontal flip followed
+ * by a clockwise rotation.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public enum Orientation {
+
+    /**
+     * The image as stored.
+     */
+    NORMAL(false, 0),
+
+    /**
+     * The image mirrored horizontally.
+     */
+    FLIPPED_HORIZONTALLY(true, 0),
+
+    /**
+     * The image rotated by 180°.
+     */
+    ROTATED_180(false, 2),
+
+    /**
+     * The image mirrored vertically.
+     */
+    FLIPPED_VERTICALLY(true, 2),
+
+    /**
+     * The image mirrored along its main diagonal, from the top left to the bottom right corner.
+     */
+    TRANSPOSED(true, 3),
+
+    /**
+     * The image rotated by 90° clockwise.
+     */
+    ROTATED_90(false, 1),
+
+    /**
+     * The image mirrored along its anti-diagonal, from the top right to the bottom left corner.
+     */
+    TRANSVERSE(true, 1),
+
+    /**
+     * The image rotated by 270° clockwise.
+     */
+    ROTATED_270(false, 3);
+
+    private final boolean mirrored;
+    private final int quarterTurns;
+
+    Orientation(boolean mirrored, int quarterTurns) {
+        this.mirrored = mirrored;
+        this.quarterTurns = quarterTurns;
+    }
+
+    private static Orientation of(boolean mirrored, int quarterTurns) {
+        int turns = Math.floorMod(quarterTurns, 4);
+        for (Orientation orientation : values()) {
+            if (orientation.mirrored == mirrored && orientation.quarterTurns == turns) {
+                return orientation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Returns the orientation resulting from flipping an image in this orientation horizontally.
+     * @return the combined {@code Orientation}.
+     */
+    public Orientation flipHorizontally() {
+        return of(!mirrored, -quarterTurns);
+    }
+
+    /**
+     * Returns the orientation resulting from flipping an image in this orientation vertically.
+     * @return the combined {@code Orientation}.
+     */
+    public Orientation flipVertically() {
+        return of(!mirrored, 2 - quarterTurns);
+    }
+
+    /**
+     * Returns the orientation resulting from rotating an image in this orientation by 90° clockwise.
+     * @return the combined {@code Orientation}.
+     */
+    public Orientation rotateBy90Degrees() {
+        return of(mirrored, quarterTurns + 1);
+    }
+
+    /**
+     * Returns the orientation resulting from rotating an image in this orientation by 180°.
+     * @return the combined {@code Orientation}.
+     */
+    public Orientation rotateBy180Degrees() {
+        return of(mirrored, quarterTurns + 2);
+    }
+
+    /**
+     * Returns the orientation resulting from rotating an image in this orientation by 270° clockwise.
+     * @return the combined {@code Orientation}.
+     */
+    public Orientation rotateBy270Degrees() {
+        return of(mirrored, quarterTurns + 3);
+    }
+
+    /**
+     * Checks whether the width and height of an image are swapped in this orientation.
+     * @return {@code true} for orientations rotated by 90° or 270°.
+     */
+    public boolean swapsDimensions() {
+        return quarterTurns % 2 == 1;
+    }
+
+    /**
+     * Creates a transform from the coordinates of an image as stored to the coordinates of the oriented image,
+     * for example to be passed to {@code Graphics2D.drawImage}.
+     * @param width width of the image as stored.
+     * @param height height of the image as stored.
+     * @return a new {@code AffineTransform}.
+     */
+    public AffineTransform createTransform(int width, int height) {
+        AffineTransform transform = new AffineTransform();
+        if (mirrored) {
+            transform.preConcatenate(new AffineTransform(-1, 0, 0, 1, width, 0));
+        }
+
+        int currentHeight = height;
+        int currentWidth = width;
+        for (int i = 0; i < quarterTurns; i++) {
+            transform.preConcatenate(new AffineTransform(0, 1, -1, 0, currentHeight, 0));
+            int swap = currentWidth;
+            currentWidth = currentHeight;
+            currentHeight = swap;
+        }
+        return transform;
+    }
+
+    /**
+     * Creates a mapping from the pixels of the oriented image to the pixels of the image as stored.
+     * @param width width of the image as stored.
+     * @param height height of the image as stored.
+     * @return a {@code PixelMapping} for {@code PixelEngine.remap}.
+     */
+    PixelMapping createMapping(int width, int height) {
+        PixelMapping mapping = mirrored ? PixelMapping.flip(width, height, true, false) : PixelMapping.IDENTITY;
+        return switch (quarterTurns) {
+            case 1 -> mapping.then(PixelMapping.rotation90(height));
+            case 2 -> mapping.then(PixelMapping.flip(width, height, true, true));
+            case 3 -> mapping.then(PixelMapping.rotation270(width));
+            default -> mapping;
+        };
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.gutil.gui;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * Image displayed in one of the eight {@link Orientation}s. Flips and rotations only change the stored orientation,
+ * without touching any pixels, and the orientation is applied as an {@code AffineTransform} when the image is drawn.
+ * The pixels are rearranged only when a new image is requested with {@link #toImage()}.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public final class OrientedImage {
+
+    private final Image image;
+    private final Orientation orientation;
+
+    private OrientedImage(Image image, Orientation orientation) {
+        if (image == null) {
+            throw new IllegalArgumentException("Image cannot be null");
+        }
+        if (orientation == null) {
+            throw new IllegalArgumentException("Orientation cannot be null");
+        }
+        this.image = image;
+        this.orientation = orientation;
+    }
+
+    /**
+     * Wraps an image displayed as stored.
+     * @param image an {@code Image} to be wrapped.
+     * @return a new {@code OrientedImage} instance.
+     */
+    public static OrientedImage of(Image image) {
+        return new OrientedImage(image, Orientation.NORMAL);
+    }
+
+    /**
+     * Wraps an image displayed in the specified orientation.
+     * @param image an {@code Image} to be wrapped.
+     * @param orientation the orientation to display the image in.
+     * @return a new {@code OrientedImage} instance.
+     */
+    public static OrientedImage of(Image image, Orientation orientation) {
+        return new OrientedImage(image, orientation);
+    }
+
+    /**
+     * Returns the wrapped image, as stored.
+     * @return the original {@code Image}.
+     */
+    public Image getImage() {
+        return image;
+    }
+
+    /**
+     * Returns the orientation the image is displayed in.
+     * @return the current {@code Orientation}.
+     */
+    public Orientation getOrientation() {
+        return orientation;
+    }
+
+    /**
+     * Returns the width of the image as displayed.
+     * @return the oriented width in pixels.
+     */
+    public int getWidth() {
+        return orientation.swapsDimensions() ? image.getHeight(null) : image.getWidth(null);
+    }
+
+    /**
+     * Returns the height of the image as displayed.
+     * @return the oriented height in pixels.
+     */
+    public int getHeight() {
+        return orientation.swapsDimensions() ? image.getWidth(null) : image.getHeight(null);
+    }
+
+    /**
+     * Returns the same image flipped horizontally.
+     * @return a new {@code OrientedImage} sharing the wrapped image.
+     */
+    public OrientedImage flipHorizontally() {
+        return new OrientedImage(image, orientation.flipHorizontally());
+    }
+
+    /**
+     * Returns the same image flipped vertically.
+     * @return a new {@code OrientedImage} sharing the wrapped image.
+     */
+    public OrientedImage flipVertically() {
+        return new OrientedImage(image, orientation.flipVertically());
+    }
+
+    /**
+     * Returns the same image rotated by 90° clockwise.
+     * @return a new {@code OrientedImage} sharing the wrapped image.
+     */
+    public OrientedImage rotateBy90Degrees() {
+        return new OrientedImage(image, orientation.rotateBy90Degrees());
+    }
+
+    /**
+     * Returns the same image rotated by 180°.
+     * @return a new {@code OrientedImage} sharing the wrapped image.
+     */
+    public OrientedImage rotateBy180Degrees() {
+        return new OrientedImage(image, orientation.rotateBy180Degrees());
+    }
+
+    /**
+     * Returns the same image rotated by 270° clockwise.
+     * @return a new {@code OrientedImage} sharing the wrapped image.
+     */
+    public OrientedImage rotateBy270Degrees() {
+        return new OrientedImage(image, orientation.rotateBy270Degrees());
+    }
+
+    /**
+     * Creates a transform drawing the wrapped image oriented, with the top left corner at the specified position,
+     * to be passed to {@code Graphics2D.drawImage(Image, AffineTransform, ImageObserver)} along with {@link #getImage()}.
+     * @param x horizontal position of the oriented image.
+     * @param y vertical position of the oriented image.
+     * @return a new {@code AffineTransform}.
+     */
+    public AffineTransform getTransform(int x, int y) {
+        AffineTransform transform = orientation.createTransform(image.getWidth(null), image.getHeight(null));
+        transform.preConcatenate(AffineTransform.getTranslateInstance(x, y));
+        return transform;
+    }
+
+    /**
+     * Draws the oriented image with the top left corner at the specified position.
+     * @param g the {@code Graphics} to draw with.
+     * @param x horizontal position of the oriented image.
+     * @param y vertical position of the oriented image.
+     */
+    public void draw(Graphics g, int x, int y) {
+        if (orientation == Orientation.NORMAL) {
+            g.drawImage(image, x, y, null);
+        } else {
+            ((Graphics2D) g).drawImage(image, getTransform(x, y), null);
+        }
+    }
+
+    /**
+     * Creates an image with the pixels rearranged according to the orientation.
+     * @return a new {@code Image} of the same type, or the wrapped image if it is displayed as stored.
+     */
+    public Image toImage() {
+        if (orientation == Orientation.NORMAL) {
+            return image;
+        }
+
+        BufferedImage originalImage = (BufferedImage) image;
+        BufferedImage newImage = ScratchImagePool.getDefault().acquireCompatible(originalImage, getWidth(), getHeight());
+        PixelEngine.remap(originalImage, newImage, orientation.createMapping(originalImage.getWidth(), originalImage.getHeight()), null);
+        return newImage;
+    }
+
+}
@@ -0,0 +1,906 @@
+package com.gutil.gui;
+
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.Serial;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Allocation-free pixel processing engine used by {@code ImageUtil}. Pixels are visited in row-major order and passed
+ * to primitive kernels as packed ARGB values. Images backed by an {@code int[]} raster ({@code TYPE_INT_ARGB} and
+ * {@code TYPE_INT_RGB}) are read and written directly, and so are the common {@code byte[]} rasters
+ * ({@code TYPE_3BYTE_BGR}, {@code TYPE_4BYTE_ABGR}, {@code TYPE_BYTE_GRAY} and the compact grayscale images),
+ * converted a row at a time. Crops, flips and rotations between two {@code byte[]} rasters of the same layout copy the bytes without any conversion.
+ * All other raster types go through bulk scanline {@code getRGB}/{@code setRGB} calls. Rotations, which read source
+ * columns, are processed in square tiles, so that every source cache line is loaded once rather than once per pixel.
+ * Large images are split into bands of rows processed on the common {@code ForkJoinPool}.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+final class PixelEngine {
+
+    /**
+     * Approximate number of pixels processed by a single parallel task, chosen so that a band of an {@code int[]}
+     * raster fits in a typical L2 cache.
+     */
+    private static final int BAND_PIXELS = 1 << 16;
+
+    /**
+     * Width and height of the square tiles in which rotations are processed. A tile of the source and a tile of the
+     * target, of {@code int} pixels, together take 32 KB, the size of a typical L1 data cache.
+     */
+    private static final int TILE_SIZE = 64;
+
+    private static volatile boolean parallel = true;
+    private static volatile int parallelThreshold = 1 << 18;
+
+    /**
+     * Enables or disables processing of large images on multiple threads.
+     * @param enabled should large images be processed in parallel.
+     */
+    static void setParallel(boolean enabled) {
+        parallel = enabled;
+    }
+
+    /**
+     * Returns whether large images are processed on multiple threads.
+     * @return {@code true} if parallel processing is enabled.
+     */
+    static boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Sets the minimum number of target pixels for which an operation is split across multiple threads.
+     * @param pixelCount the minimum number of pixels, must not be negative.
+     */
+    static void setParallelThreshold(int pixelCount) {
+        if (pixelCount < 0) {
+            throw new IllegalArgumentException("Parallel threshold cannot be less than 0: " + pixelCount);
+        }
+        parallelThreshold = pixelCount;
+    }
+
+    /**
+     * Returns the minimum number of target pixels for which an operation is split across multiple threads.
+     * @return the minimum number of pixels.
+     */
+    static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Checks whether an image of the same predefined type has the same color model as the provided one. Indexed images
+     * have their own palettes, and the compact grayscale images are reported as {@code TYPE_BYTE_GRAY}, but use
+     * {@link SrgbGrayColorSpace} instead of the linear gray color space of that type.
+     * @param image an image to be checked.
+     * @return {@code true} if {@code new BufferedImage(width, height, image.getType())} is compatible with the image.
+     */
+    static boolean hasPredefinedType(BufferedImage image) {
+        ColorModel colorModel = image.getColorModel();
+        return image.getType() != BufferedImage.TYPE_CUSTOM && !(colorModel instanceof IndexColorModel)
+                && colorModel.getColorSpace() != SrgbGrayColorSpace.INSTANCE;
+    }
+
+    /**
+     * Creates an empty image with the same color model and raster layout as the provided one.
+     * @param image an image to be matched.
+     * @param width width of the new image.
+     * @param height height of the new image.
+     * @return a new compatible {@code BufferedImage}.
+     */
+    static BufferedImage createCompatibleImage(BufferedImage image, int width, int height) {
+        ColorModel colorModel = image.getColorModel();
+        if (hasPredefinedType(image)) {
+            //A raster created by the color model may order the bands differently than the predefined type.
+            return new BufferedImage(width, height, image.getType());
+        }
+
+        WritableRaster raster = colorModel.createCompatibleWritableRaster(width, height);
+        return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), null);
+    }
+
+    /**
+     * Creates an image sharing the raster of an indexed image, with the kernel applied to its palette entries instead
+     * of its pixels. The cost depends only on the palette size, and the resulting image shares the pixel data with
+     * the original one.
+     * @param image an image with an {@code IndexColorModel}.
+     * @param kernel a function transforming a packed ARGB palette entry.
+     * @return a new {@code BufferedImage} with the transformed palette.
+     */
+    static BufferedImage mapPalette(BufferedImage image, IntUnaryOperator kernel) {
+        IndexColorModel colorModel = (IndexColorModel) image.getColorModel();
+        int[] palette = new int[colorModel.getMapSize()];
+        colorModel.getRGBs(palette);
+
+        boolean hasAlpha = false;
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = kernel.applyAsInt(palette[i]);
+            hasAlpha |= palette[i] >>> 24 != 0xFF;
+        }
+
+        IndexColorModel newColorModel = new IndexColorModel(colorModel.getPixelSize(), palette.length, palette, 0,
+                hasAlpha, colorModel.getTransparentPixel(), colorModel.getTransferType());
+        return new BufferedImage(newColorModel, image.getRaster(), false, null);
+    }
+
+    /**
+     * Creates an 8-bit grayscale image holding the mean of the color components of every source pixel, the same value
+     * as {@link ColorKernels#grayscale(int)}, with an interleaved 8-bit alpha sample if the source has an alpha channel.
+     * The gray levels use {@link SrgbGrayColorSpace}, so they are drawn, encoded and reported by {@code getRGB} as the
+     * same colors as a packed ARGB grayscale image, and read back as such by later processing.
+     * @param source an image to read from.
+     * @return a new custom gray image of the same size.
+     */
+    static BufferedImage toGrayscale(BufferedImage source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        boolean hasAlpha = source.getColorModel().hasAlpha();
+
+        ColorModel colorModel = new ComponentColorModel(SrgbGrayColorSpace.INSTANCE, hasAlpha, false,
+                hasAlpha ? Transparency.TRANSLUCENT : Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
+        WritableRaster raster = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, width, height, hasAlpha ? 2 : 1, null);
+        BufferedImage target = new BufferedImage(colorModel, raster, false, null);
+        BytePixels targetBytes = BytePixels.of(target);
+        IntPixels sourcePixels = IntPixels.of(source);
+
+        forEachBand(width, height, supportsConcurrentRows(source), (fromY, toY) -> {
+            int[] row = new int[width];
+            for (int y = fromY; y < toY; y++) {
+                if (sourcePixels != null) {
+                    ColorKernels.bulk().grayscale(sourcePixels.data, sourcePixels.offset + y * sourcePixels.stride, row, 0, width);
+                } else {
+                    readRow(source, y, row);
+                    ColorKernels.bulk().grayscale(row, 0, row, 0, width);
+                }
+                targetBytes.writeRow(y, row, 0, width);
+            }
+        });
+        return target;
+    }
+
+    /**
+     * Repaints every pixel of the target with the kernel applied to the pixel at the same position in the source.
+     * Source and target must have the same dimensions and may be the same image.
+     * @param source an image to read from.
+     * @param target an image to write to.
+     * @param kernel a function transforming a packed ARGB pixel.
+     */
+    static void map(BufferedImage source, BufferedImage target, IntUnaryOperator kernel) {
+        remap(source, target, PixelMapping.IDENTITY, kernel);
+    }
+
+    /**
+     * Repaints every pixel of the target with the source pixel selected by the mapping, optionally transformed by
+     * the kernel. Source and target must not be the same image unless the mapping is the identity.
+     * @param source an image to read from.
+     * @param target an image to write to.
+     * @param mapping a mapping from target to source coordinates.
+     * @param kernel a function transforming a packed ARGB pixel, or {@code null} to copy pixels unchanged.
+     */
+    static void remap(BufferedImage source, BufferedImage target, PixelMapping mapping, IntUnaryOperator kernel) {
+        BytePixels sourceBytes = BytePixels.of(source);
+        BytePixels targetBytes = BytePixels.of(target);
+        int width = target.getWidth();
+        int minBandHeight = mapping.preservesRows() ? 1 : TILE_SIZE;
+        if (kernel == null && sourceBytes != null && targetBytes != null && sourceBytes.hasLayoutOf(targetBytes)) {
+            forEachBand(width, target.getHeight(), true, minBandHeight, (fromY, toY) -> {
+                if (mapping.preservesRows()) {
+                    copyRows(sourceBytes, targetBytes, mapping, width, fromY, toY);
+                } else {
+                    copyTiles(sourceBytes, targetBytes, mapping, width, fromY, toY);
+                }
+            });
+            return;
+        }
+
+        IntUnaryOperator operator = kernel == null ? IntUnaryOperator.identity() : kernel;
+        IntPixels sourcePixels = sourcePixels(source, sourceBytes, mapping);
+        IntPixels targetPixels = IntPixels.of(target);
+        boolean concurrent = (sourcePixels != null || supportsConcurrentRows(source)) && supportsConcurrentRows(target);
+
+        forEachBand(width, target.getHeight(), concurrent, minBandHeight, (fromY, toY) -> {
+            if (sourcePixels != null && targetPixels != null && !mapping.preservesRows()) {
+                remapTiles(sourcePixels, targetPixels, mapping, operator, width, fromY, toY);
+            } else {
+                remapRows(source, sourceBytes, sourcePixels, target, targetBytes, targetPixels, mapping, operator, fromY, toY);
+            }
+        });
+    }
+
+    /**
+     * Returns the pixels of a remap source. Sources without an {@code int[]} raster are read in bulk, row by row
+     * during the remap if the mapping preserves rows, in which case {@code null} is returned, or as a whole otherwise.
+     */
+    private static IntPixels sourcePixels(BufferedImage source, BytePixels sourceBytes, PixelMapping mapping) {
+        IntPixels sourcePixels = IntPixels.of(source);
+        if (sourcePixels != null || mapping.preservesRows()) {
+            return sourcePixels;
+        }
+
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int[] data;
+        if (sourceBytes != null) {
+            data = new int[width * height];
+            forEachBand(width, height, true, (fromY, toY) -> {
+                for (int y = fromY; y < toY; y++) {
+                    sourceBytes.readRow(y, data, y * width, width);
+                }
+            });
+        } else {
+            data = source.getRGB(0, 0, width, height, null, 0, width);
+        }
+        return new IntPixels(data, 0, width, false);
+    }
+
+    /**
+     * Repaints every row of the target with the row kernel applied to the same row of the source. Source and target
+     * must have the same dimensions and may be the same image. Pixels of images without an alpha channel are passed to
+     * the kernel as opaque, and the alpha bits it returns are dropped if the target has no alpha channel.
+     * @param source an image to read from.
+     * @param target an image to write to.
+     * @param kernel a function transforming a row of packed ARGB pixels.
+     */
+    static void transformRows(BufferedImage source, BufferedImage target, RowKernel kernel) {
+        IntPixels sourcePixels = IntPixels.of(source);
+        IntPixels targetPixels = IntPixels.of(target);
+        BytePixels sourceBytes = BytePixels.of(source);
+        BytePixels targetBytes = BytePixels.of(target);
+        boolean concurrent = supportsConcurrentRows(source) && supportsConcurrentRows(target);
+
+        forEachBand(target.getWidth(), target.getHeight(), concurrent, (fromY, toY) ->
+                mapRows(source, sourceBytes, sourcePixels, target, targetBytes, targetPixels, kernel, fromY, toY));
+    }
+
+    /**
+     * Runs the action over all rows of an image of the specified size, either at once on the calling thread,
+     * or split into bands processed in parallel.
+     * @param width width of the processed image.
+     * @param height height of the processed image.
+     * @param concurrent can the rows be processed by multiple threads at once.
+     * @param action an action processing a range of rows.
+     */
+    static void forEachBand(int width, int height, boolean concurrent, RowRangeAction action) {
+        forEachBand(width, height, concurrent, 1, action);
+    }
+
+    /**
+     * Runs the action over all rows of an image, in bands of at least the specified number of rows.
+     */
+    private static void forEachBand(int width, int height, boolean concurrent, int minBandHeight, RowRangeAction action) {
+        if (concurrent && shouldRunInParallel(width, height)) {
+            int bandHeight = Math.max(minBandHeight, BAND_PIXELS / Math.max(width, 1));
+            ForkJoinPool.commonPool().invoke(new RowTask(action, 0, height, bandHeight));
+        } else {
+            action.run(0, height);
+        }
+    }
+
+    /**
+     * Checks whether an operation producing an image of the specified size should be split across multiple threads.
+     * @param width width of the target image.
+     * @param height height of the target image.
+     * @return {@code true} if the operation should run in parallel.
+     */
+    static boolean shouldRunInParallel(int width, int height) {
+        return parallel && (long) width * height >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Checks whether different rows of the image can be read and written from multiple threads at once.
+     * @param image an image to be checked.
+     * @return {@code true} if the rows can be processed in parallel.
+     */
+    static boolean supportsConcurrentRows(BufferedImage image) {
+        return IntPixels.of(image) != null || BytePixels.of(image) != null || supportsConcurrentAccess(image);
+    }
+
+    /**
+     * Reads a row of the image as packed ARGB pixels.
+     * @param image an image to read from.
+     * @param y index of the row.
+     * @param row an array to be filled, at least as long as the image width.
+     */
+    static void readRow(BufferedImage image, int y, int[] row) {
+        int width = image.getWidth();
+        IntPixels pixels = IntPixels.of(image);
+        if (pixels == null) {
+            readRow(image, BytePixels.of(image), y, row);
+            return;
+        }
+
+        int index = pixels.offset + y * pixels.stride;
+        for (int x = 0; x < width; x++) {
+            row[x] = pixels.data[index + x] | pixels.alpha;
+        }
+    }
+
+    /**
+     * Writes a row of packed ARGB pixels into the image.
+     * @param image an image to write to.
+     * @param y index of the row.
+     * @param row pixels to be written, at least as many as the image width.
+     */
+    static void writeRow(BufferedImage image, int y, int[] row) {
+        int width = image.getWidth();
+        IntPixels pixels = IntPixels.of(image);
+        if (pixels == null) {
+            writeRow(image, BytePixels.of(image), y, row);
+            return;
+        }
+
+        int index = pixels.offset + y * pixels.stride;
+        for (int x = 0; x < width; x++) {
+            pixels.data[index + x] = row[x] & pixels.mask;
+        }
+    }
+
+    /**
+     * Reads a row of an image without an {@code int[]} raster, directly from its {@code byte[]} raster if possible.
+     */
+    private static void readRow(BufferedImage image, BytePixels bytes, int y, int[] row) {
+        int width = image.getWidth();
+        if (bytes != null) {
+            bytes.readRow(y, row, 0, width);
+        } else {
+            image.getRGB(0, y, width, 1, row, 0, width);
+        }
+    }
+
+    /**
+     * Writes a row of an image without an {@code int[]} raster, directly into its {@code byte[]} raster if possible.
+     */
+    private static void writeRow(BufferedImage image, BytePixels bytes, int y, int[] row) {
+        int width = image.getWidth();
+        if (bytes != null) {
+            bytes.writeRow(y, row, 0, width);
+        } else {
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+    }
+
+    /**
+     * Checks whether different rows of the image can be read and written through {@code getRGB}/{@code setRGB}
+     * from multiple threads at once. Rasters packing several pixels into one element, and color models with shared
+     * lookup state, are always processed on a single thread.
+     */
+    private static boolean supportsConcurrentAccess(BufferedImage image) {
+        ColorModel colorModel = image.getColorModel();
+        return !(image.getSampleModel() instanceof MultiPixelPackedSampleModel)
+                && !(colorModel instanceof IndexColorModel)
+                && colorModel.getColorSpace().isCS_sRGB();
+    }
+
+    /**
+     * Processes the rows between {@code fromY} (inclusive) and {@code toY} (exclusive) of the target image.
+     * If {@code sourcePixels} is {@code null}, each required source row is read as a whole.
+     */
+    private static void remapRows(BufferedImage source, BytePixels sourceBytes, IntPixels sourcePixels,
+                                  BufferedImage target, BytePixels targetBytes, IntPixels targetPixels,
+                                  PixelMapping mapping, IntUnaryOperator kernel, int fromY, int toY) {
+        int width = target.getWidth();
+        int[] sourceRow = sourcePixels == null ? new int[source.getWidth()] : null;
+        int[] targetRow = targetPixels == null ? new int[width] : null;
+
+        for (int y = fromY; y < toY; y++) {
+            int sourceX = mapping.m01 * y + mapping.m02;
+            int sourceY = mapping.m11 * y + mapping.m12;
+
+            int[] sourceData;
+            int sourceIndex;
+            int sourceStep;
+            int sourceAlpha;
+            if (sourcePixels != null) {
+                sourceData = sourcePixels.data;
+                sourceIndex = sourcePixels.offset + sourceY * sourcePixels.stride + sourceX;
+                sourceStep = mapping.m00 + mapping.m10 * sourcePixels.stride;
+                sourceAlpha = sourcePixels.alpha;
+            } else {
+                readRow(source, sourceBytes, sourceY, sourceRow);
+                sourceData = sourceRow;
+                sourceIndex = sourceX;
+                sourceStep = mapping.m00;
+                sourceAlpha = 0;
+            }
+
+            int[] targetData = targetPixels != null ? targetPixels.data : targetRow;
+            int targetIndex = targetPixels != null ? targetPixels.offset + y * targetPixels.stride : 0;
+            int targetMask = targetPixels != null ? targetPixels.mask : 0xFFFFFFFF;
+
+            for (int x = 0; x < width; x++) {
+                targetData[targetIndex + x] = kernel.applyAsInt(sourceData[sourceIndex] | sourceAlpha) & targetMask;
+                sourceIndex += sourceStep;
+            }
+
+            if (targetPixels == null) {
+                writeRow(target, targetBytes, y, targetRow);
+            }
+        }
+    }
+
+    /**
+     * Processes the rows between {@code fromY} (inclusive) and {@code toY} (exclusive) of an {@code int[]} target,
+     * reading an {@code int[]} source, tile by tile. Within a tile, the target rows are read from neighbouring source
+     * columns of the same source rows, so the source lines loaded for the first target row serve all the others.
+     */
+    private static void remapTiles(IntPixels sourcePixels, IntPixels targetPixels, PixelMapping mapping,
+                                   IntUnaryOperator kernel, int width, int fromY, int toY) {
+        int[] sourceData = sourcePixels.data;
+        int[] targetData = targetPixels.data;
+        int sourceStep = mapping.m00 + mapping.m10 * sourcePixels.stride;
+        int sourceAlpha = sourcePixels.alpha;
+        int targetMask = targetPixels.mask;
+
+        for (int tileY = fromY; tileY < toY; tileY += TILE_SIZE) {
+            int tileEndY = Math.min(toY, tileY + TILE_SIZE);
+            for (int tileX = 0; tileX < width; tileX += TILE_SIZE) {
+                int tileEndX = Math.min(width, tileX + TILE_SIZE);
+                for (int y = tileY; y < tileEndY; y++) {
+                    int sourceX = mapping.m00 * tileX + mapping.m01 * y + mapping.m02;
+                    int sourceY = mapping.m10 * tileX + mapping.m11 * y + mapping.m12;
+                    int sourceIndex = sourcePixels.offset + sourceY * sourcePixels.stride + sourceX;
+                    int targetIndex = targetPixels.offset + y * targetPixels.stride;
+
+                    for (int x = tileX; x < tileEndX; x++) {
+                        targetData[targetIndex + x] = kernel.applyAsInt(sourceData[sourceIndex] | sourceAlpha) & targetMask;
+                        sourceIndex += sourceStep;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the pixels of the rows between {@code fromY} (inclusive) and {@code toY} (exclusive) between two
+     * {@code byte[]} rasters of the same layout, without converting them to packed ARGB values.
+     */
+    private static void copyRows(BytePixels source, BytePixels target, PixelMapping mapping, int width, int fromY, int toY) {
+        int pixelStride = target.pixelStride;
+        int sourceStep = mapping.m00 * pixelStride + mapping.m10 * source.stride;
+        byte[] sourceData = source.data;
+        byte[] targetData = target.data;
+
+        for (int y = fromY; y < toY; y++) {
+            int sourceX = mapping.m01 * y + mapping.m02;
+            int sourceY = mapping.m11 * y + mapping.m12;
+            int sourceIndex = source.offset + sourceY * source.stride + sourceX * pixelStride;
+            int targetIndex = target.offset + y * target.stride;
+
+            if (sourceStep == pixelStride) {
+                System.arraycopy(sourceData, sourceIndex, targetData, targetIndex, width * pixelStride);
+                continue;
+            }
+            for (int x = 0; x < width; x++) {
+                for (int i = 0; i < pixelStride; i++) {
+                    targetData[targetIndex + i] = sourceData[sourceIndex + i];
+                }
+                sourceIndex += sourceStep;
+                targetIndex += pixelStride;
+            }
+        }
+    }
+
+    /**
+     * Copies the pixels of the rows between {@code fromY} (inclusive) and {@code toY} (exclusive) between two
+     * {@code byte[]} rasters of the same layout tile by tile, like {@link #remapTiles}.
+     */
+    private static void copyTiles(BytePixels source, BytePixels target, PixelMapping mapping, int width, int fromY, int toY) {
+        int pixelStride = target.pixelStride;
+        int sourceStep = mapping.m00 * pixelStride + mapping.m10 * source.stride;
+        byte[] sourceData = source.data;
+        byte[] targetData = target.data;
+
+        for (int tileY = fromY; tileY < toY; tileY += TILE_SIZE) {
+            int tileEndY = Math.min(toY, tileY + TILE_SIZE);
+            for (int tileX = 0; tileX < width; tileX += TILE_SIZE) {
+                int tileEndX = Math.min(width, tileX + TILE_SIZE);
+                for (int y = tileY; y < tileEndY; y++) {
+                    int sourceX = mapping.m00 * tileX + mapping.m01 * y + mapping.m02;
+                    int sourceY = mapping.m10 * tileX + mapping.m11 * y + mapping.m12;
+                    int sourceIndex = source.offset + sourceY * source.stride + sourceX * pixelStride;
+                    int targetIndex = target.offset + y * target.stride + tileX * pixelStride;
+                    int targetEndIndex = targetIndex + (tileEndX - tileX) * pixelStride;
+
+                    if (pixelStride == 1) {
+                        for (; targetIndex < targetEndIndex; targetIndex++, sourceIndex += sourceStep) {
+                            targetData[targetIndex] = sourceData[sourceIndex];
+                        }
+                    } else if (pixelStride == 3) {
+                        for (; targetIndex < targetEndIndex; targetIndex += 3, sourceIndex += sourceStep) {
+                            targetData[targetIndex] = sourceData[sourceIndex];
+                            targetData[targetIndex + 1] = sourceData[sourceIndex + 1];
+                            targetData[targetIndex + 2] = sourceData[sourceIndex + 2];
+                        }
+                    } else if (pixelStride == 2) {
+                        for (; targetIndex < targetEndIndex; targetIndex += 2, sourceIndex += sourceStep) {
+                            targetData[targetIndex] = sourceData[sourceIndex];
+                            targetData[targetIndex + 1] = sourceData[sourceIndex + 1];
+                        }
+                    } else {
+                        //Only 4-byte pixels remain.
+                        for (; targetIndex < targetEndIndex; targetIndex += 4, sourceIndex += sourceStep) {
+                            targetData[targetIndex] = sourceData[sourceIndex];
+                            targetData[targetIndex + 1] = sourceData[sourceIndex + 1];
+                            targetData[targetIndex + 2] = sourceData[sourceIndex + 2];
+                            targetData[targetIndex + 3] = sourceData[sourceIndex + 3];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes the rows between {@code fromY} (inclusive) and {@code toY} (exclusive) with a row kernel.
+     * Rows of images without an {@code int[]} raster are converted through a temporary row.
+     */
+    private static void mapRows(BufferedImage source, BytePixels sourceBytes, IntPixels sourcePixels,
+                                BufferedImage target, BytePixels targetBytes, IntPixels targetPixels,
+                                RowKernel kernel, int fromY, int toY) {
+        int width = target.getWidth();
+        //Rows of an opaque int[] source are copied, so that the kernel sees their implied alpha.
+        int[] sourceRow = sourcePixels == null || sourcePixels.alpha != 0 ? new int[width] : null;
+        int[] targetRow = targetPixels == null ? (sourceRow != null ? sourceRow : new int[width]) : null;
+
+        for (int y = fromY; y < toY; y++) {
+            int[] sourceData;
+            int sourceIndex;
+            if (sourcePixels != null && sourcePixels.alpha == 0) {
+                sourceData = sourcePixels.data;
+                sourceIndex = sourcePixels.offset + y * sourcePixels.stride;
+            } else {
+                if (sourcePixels != null) {
+                    int index = sourcePixels.offset + y * sourcePixels.stride;
+                    for (int x = 0; x < width; x++) {
+                        sourceRow[x] = sourcePixels.data[index + x] | sourcePixels.alpha;
+                    }
+                } else {
+                    readRow(source, sourceBytes, y, sourceRow);
+                }
+                sourceData = sourceRow;
+                sourceIndex = 0;
+            }
+
+            if (targetPixels != null) {
+                int targetIndex = targetPixels.offset + y * targetPixels.stride;
+                kernel.apply(sourceData, sourceIndex, targetPixels.data, targetIndex, width);
+                if (targetPixels.mask != 0xFFFFFFFF) {
+                    for (int x = targetIndex; x < targetIndex + width; x++) {
+                        targetPixels.data[x] &= targetPixels.mask;
+                    }
+                }
+                continue;
+            }
+
+            kernel.apply(sourceData, sourceIndex, targetRow, 0, width);
+            writeRow(target, targetBytes, y, targetRow);
+        }
+    }
+
+    /**
+     * Function transforming a row of packed ARGB pixels. The source and target ranges may be the same.
+     */
+    @FunctionalInterface
+    interface RowKernel {
+
+        /**
+         * Transforms {@code length} pixels of the source array into the target array.
+         * @param source an array to read from.
+         * @param sourceOffset index of the first pixel to read.
+         * @param target an array to write to.
+         * @param targetOffset index of the first pixel to write.
+         * @param length number of pixels to transform.
+         */
+        void apply(int[] source, int sourceOffset, int[] target, int targetOffset, int length);
+
+        /**
+         * Returns a kernel applying this kernel, and then the next one to its result.
+         * @param next a kernel to be applied second.
+         * @return the composed kernel.
+         */
+        default RowKernel andThen(RowKernel next) {
+            return (source, sourceOffset, target, targetOffset, length) -> {
+                apply(source, sourceOffset, target, targetOffset, length);
+                next.apply(target, targetOffset, target, targetOffset, length);
+            };
+        }
+
+    }
+
+    /**
+     * Action processing a range of image rows.
+     */
+    @FunctionalInterface
+    interface RowRangeAction {
+
+        /**
+         * Processes the rows between {@code fromY} (inclusive) and {@code toY} (exclusive).
+         * @param fromY the first row to process.
+         * @param toY the row following the last one to process.
+         */
+        void run(int fromY, int toY);
+
+    }
+
+    /**
+     * Task processing a range of target rows, split into halves until it covers no more than a single band.
+     */
+    private static final class RowTask extends RecursiveAction {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient RowRangeAction action;
+        private final int fromY;
+        private final int toY;
+        private final int bandHeight;
+
+        RowTask(RowRangeAction action, int fromY, int toY, int bandHeight) {
+            this.action = action;
+            this.fromY = fromY;
+            this.toY = toY;
+            this.bandHeight = bandHeight;
+        }
+
+        @Override
+        protected void compute() {
+            if (toY - fromY <= bandHeight) {
+                action.run(fromY, toY);
+                return;
+            }
+
+            int middleY = (fromY + toY) >>> 1;
+            invokeAll(new RowTask(action, fromY, middleY, bandHeight), new RowTask(action, middleY, toY, bandHeight));
+        }
+
+    }
+
+    /**
+     * Direct view of an {@code int[]} raster holding one packed pixel per element.
+     */
+    private static final class IntPixels {
+
+        final int[] data;
+        final int offset;
+        final int stride;
+
+        /**
+         * Bits added to every pixel read, so that rasters without an alpha channel are read as opaque.
+         */
+        final int alpha;
+
+        /**
+         * Bits kept from every pixel written, so that rasters without an alpha channel only store RGB values.
+         */
+        final int mask;
+
+        IntPixels(int[] data, int offset, int stride, boolean opaque) {
+            this.data = data;
+            this.offset = offset;
+            this.stride = stride;
+            this.alpha = opaque ? 0xFF000000 : 0;
+            this.mask = opaque ? 0x00FFFFFF : 0xFFFFFFFF;
+        }
+
+        /**
+         * Returns a direct view of the image pixels, or {@code null} if the image is not backed by a packed
+         * ARGB or RGB {@code int[]} raster.
+         */
+        static IntPixels of(BufferedImage image) {
+            int type = image.getType();
+            if (type != BufferedImage.TYPE_INT_ARGB && type != BufferedImage.TYPE_INT_RGB) {
+                return null;
+            }
+
+            WritableRaster raster = image.getRaster();
+            if (!(raster.getDataBuffer() instanceof DataBufferInt buffer)
+                    || !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel)) {
+                return null;
+            }
+
+            int offset = buffer.getOffset() + sampleModel.getOffset(
+                    raster.getMinX() - raster.getSampleModelTranslateX(),
+                    raster.getMinY() - raster.getSampleModelTranslateY());
+            return new IntPixels(buffer.getData(), offset, sampleModel.getScanlineStride(),
+                    type == BufferedImage.TYPE_INT_RGB);
+        }
+
+    }
+
+    /**
+     * Direct view of a {@code byte[]} raster of interleaved 8-bit samples: {@code TYPE_3BYTE_BGR},
+     * {@code TYPE_4BYTE_ABGR}, {@code TYPE_BYTE_GRAY} or a gray image of {@link SrgbGrayColorSpace}, optionally with
+     * alpha. Samples of {@code TYPE_BYTE_GRAY} are converted through tables giving exactly the values of
+     * {@code getRGB}/{@code setRGB}, which treat them as linear rather than sRGB intensities.
+     */
+    private static final class BytePixels {
+
+        /**
+         * Type of the gray images of {@link SrgbGrayColorSpace}, which have no image type of their own.
+         */
+        private static final int SRGB_GRAY = -1;
+
+        /**
+         * Packed ARGB values of all grayscale samples.
+         */
+        private static final int[] GRAY_TO_RGB = new int[256];
+
+        /**
+         * Linear intensities of all sRGB component values, scaled to 16 bits.
+         */
+        private static final float[] SRGB_TO_LINEAR = new float[256];
+
+        static {
+            ColorModel grayModel = new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY).getColorModel();
+            for (int i = 0; i < 256; i++) {
+                //The same conversion as used by BufferedImage.getRGB, which differs from getRGB(int) for some samples.
+                GRAY_TO_RGB[i] = grayModel.getRGB(new byte[]{(byte) i});
+
+                //The same formula and rounding as used by ComponentColorModel.
+                float input = i / 255.0f;
+                float output = input <= 0.04045f ? input / 12.92f : (float) Math.pow((input + 0.055f) / 1.055f, 2.4);
+                SRGB_TO_LINEAR[i] = Math.round(output * 65535.0f);
+            }
+        }
+
+        final byte[] data;
+        final int offset;
+        final int stride;
+        final int pixelStride;
+        private final int type;
+        private final int redOffset;
+        private final int greenOffset;
+        private final int blueOffset;
+        private final int alphaOffset;
+
+        private BytePixels(byte[] data, int offset, int stride, int type, int[] bandOffsets) {
+            this.data = data;
+            this.offset = offset;
+            this.stride = stride;
+            this.pixelStride = bandOffsets.length;
+            this.type = type;
+            this.redOffset = bandOffsets[0];
+            this.greenOffset = bandOffsets.length > 1 ? bandOffsets[1] : 0;
+            this.blueOffset = bandOffsets.length > 2 ? bandOffsets[2] : 0;
+            //Gray images store their alpha after the gray level.
+            this.alphaOffset = bandOffsets.length > 3 ? bandOffsets[3] : type == SRGB_GRAY && bandOffsets.length == 2 ? bandOffsets[1] : 0;
+        }
+
+        /**
+         * Returns a direct view of the image pixels, or {@code null} if the image is not backed by one of the
+         * supported {@code byte[]} rasters.
+         */
+        static BytePixels of(BufferedImage image) {
+            int type = image.getType();
+            //An opaque gray image of any gray color space is reported as TYPE_BYTE_GRAY.
+            if (image.getColorModel() instanceof ComponentColorModel colorModel
+                    && colorModel.getColorSpace() == SrgbGrayColorSpace.INSTANCE && !colorModel.isAlphaPremultiplied()
+                    && colorModel.getTransferType() == DataBuffer.TYPE_BYTE) {
+                type = SRGB_GRAY;
+            } else if (type != BufferedImage.TYPE_3BYTE_BGR && type != BufferedImage.TYPE_4BYTE_ABGR
+                    && type != BufferedImage.TYPE_BYTE_GRAY) {
+                return null;
+            }
+
+            WritableRaster raster = image.getRaster();
+            if (!(raster.getDataBuffer() instanceof DataBufferByte buffer) || buffer.getNumBanks() != 1
+                    || !(raster.getSampleModel() instanceof PixelInterleavedSampleModel sampleModel)
+                    || sampleModel.getPixelStride() != sampleModel.getNumBands()) {
+                return null;
+            }
+
+            //Offset of the first pixel, without the offset of its first band.
+            int offset = buffer.getOffset()
+                    + (raster.getMinY() - raster.getSampleModelTranslateY()) * sampleModel.getScanlineStride()
+                    + (raster.getMinX() - raster.getSampleModelTranslateX()) * sampleModel.getPixelStride();
+            return new BytePixels(buffer.getData(), offset, sampleModel.getScanlineStride(), type,
+                    sampleModel.getBandOffsets());
+        }
+
+        /**
+         * Checks whether the pixels of both rasters are stored the same way, so that they can be copied byte by byte.
+         */
+        boolean hasLayoutOf(BytePixels other) {
+            return type == other.type && pixelStride == other.pixelStride && redOffset == other.redOffset
+                    && greenOffset == other.greenOffset && blueOffset == other.blueOffset && alphaOffset == other.alphaOffset;
+        }
+
+        /**
+         * Reads {@code length} pixels of a row, starting from its first pixel, as packed ARGB values.
+         */
+        void readRow(int y, int[] row, int rowOffset, int length) {
+            int index = offset + y * stride;
+            switch (type) {
+                case BufferedImage.TYPE_BYTE_GRAY -> {
+                    for (int x = 0; x < length; x++) {
+                        row[rowOffset + x] = GRAY_TO_RGB[data[index + x] & 0xFF];
+                    }
+                }
+                case SRGB_GRAY -> {
+                    if (pixelStride == 1) {
+                        for (int x = 0; x < length; x++) {
+                            row[rowOffset + x] = 0xFF000000 | (data[index + x] & 0xFF) * 0x010101;
+                        }
+                    } else {
+                        for (int x = 0; x < length; x++, index += 2) {
+                            row[rowOffset + x] = (data[index + alphaOffset] & 0xFF) << 24 | (data[index + redOffset] & 0xFF) * 0x010101;
+                        }
+                    }
+                }
+                case BufferedImage.TYPE_3BYTE_BGR -> {
+                    for (int x = 0; x < length; x++, index += 3) {
+                        row[rowOffset + x] = 0xFF000000 | (data[index + redOffset] & 0xFF) << 16
+                                | (data[index + greenOffset] & 0xFF) << 8 | (data[index + blueOffset] & 0xFF);
+                    }
+                }
+                default -> {
+                    for (int x = 0; x < length; x++, index += 4) {
+                        row[rowOffset + x] = (data[index + alphaOffset] & 0xFF) << 24 | (data[index + redOffset] & 0xFF) << 16
+                                | (data[index + greenOffset] & 0xFF) << 8 | (data[index + blueOffset] & 0xFF);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Writes {@code length} packed ARGB pixels into a row, starting from its first pixel.
+         */
+        void writeRow(int y, int[] row, int rowOffset, int length) {
+            int index = offset + y * stride;
+            switch (type) {
+                case BufferedImage.TYPE_BYTE_GRAY -> {
+                    for (int x = 0; x < length; x++) {
+                        int argb = row[rowOffset + x];
+                        //The luminance of the linear components, computed like ComponentColorModel does.
+                        float gray = (0.2125f * SRGB_TO_LINEAR[(argb >> 16) & 0xFF] + 0.7154f * SRGB_TO_LINEAR[(argb >> 8) & 0xFF]
+                                + 0.0721f * SRGB_TO_LINEAR[argb & 0xFF]) / 65535.0f;
+                        data[index + x] = (byte) (int) (gray * 255 + 0.5f);
+                    }
+                }
+                case SRGB_GRAY -> {
+                    for (int x = 0; x < length; x++, index += pixelStride) {
+                        int argb = row[rowOffset + x];
+                        //The mean value, the same as ColorKernels.grayscale.
+                        data[index + redOffset] = (byte) ((((argb >> 16) & 0xFF) + ((argb >> 8) & 0xFF) + (argb & 0xFF)) / 3);
+                        if (pixelStride == 2) {
+                            data[index + alphaOffset] = (byte) (argb >>> 24);
+                        }
+                    }
+                }
+                case BufferedImage.TYPE_3BYTE_BGR -> {
+                    for (int x = 0; x < length; x++, index += 3) {
+                        int argb = row[rowOffset + x];
+                        data[index + redOffset] = (byte) (argb >> 16);
+                        data[index + greenOffset] = (byte) (argb >> 8);
+                        data[index + blueOffset] = (byte) argb;
+                    }
+                }
+                default -> {
+                    for (int x = 0; x < length; x++, index += 4) {
+                        int argb = row[rowOffset + x];
+                        data[index + alphaOffset] = (byte) (argb >>> 24);
+                        data[index + redOffset] = (byte) (argb >> 16);
+                        data[index + greenOffset] = (byte) (argb >> 8);
+                        data[index + blueOffset] = (byte) argb;
+                    }
+                }
+            }
+        }
+
+    }
+
+}
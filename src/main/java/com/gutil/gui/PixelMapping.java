@@ -0,0 +1,106 @@
+package com.gutil.gui;
+
+/**
+ * Immutable integer mapping from target pixel coordinates to source pixel coordinates, used by {@code PixelEngine}
+ * to express crops, flips and rotations as a single row-major pass. A target pixel {@code (x, y)} is read from
+ * the source pixel {@code (m00 * x + m01 * y + m02, m10 * x + m11 * y + m12)}.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+final class PixelMapping {
+
+    /**
+     * A mapping which reads every target pixel from the same position in the source.
+     */
+    static final PixelMapping IDENTITY = new PixelMapping(1, 0, 0, 0, 1, 0);
+
+    final int m00;
+    final int m01;
+    final int m02;
+    final int m10;
+    final int m11;
+    final int m12;
+
+    private PixelMapping(int m00, int m01, int m02, int m10, int m11, int m12) {
+        this.m00 = m00;
+        this.m01 = m01;
+        this.m02 = m02;
+        this.m10 = m10;
+        this.m11 = m11;
+        this.m12 = m12;
+    }
+
+    /**
+     * Creates a mapping which offsets the source by the specified amount, as used for cropping.
+     * @param x horizontal offset of the first source pixel.
+     * @param y vertical offset of the first source pixel.
+     * @return a translating {@code PixelMapping}.
+     */
+    static PixelMapping translation(int x, int y) {
+        return new PixelMapping(1, 0, x, 0, 1, y);
+    }
+
+    /**
+     * Creates a mapping which mirrors a source of the specified size.
+     * @param width width of the source.
+     * @param height height of the source.
+     * @param horizontally should the source be mirrored horizontally.
+     * @param vertically should the source be mirrored vertically.
+     * @return a flipping {@code PixelMapping}.
+     */
+    static PixelMapping flip(int width, int height, boolean horizontally, boolean vertically) {
+        return new PixelMapping(horizontally ? -1 : 1, 0, horizontally ? width - 1 : 0,
+                0, vertically ? -1 : 1, vertically ? height - 1 : 0);
+    }
+
+    /**
+     * Creates a mapping which rotates a source of the specified height by 90° clockwise.
+     * @param height height of the source.
+     * @return a rotating {@code PixelMapping}.
+     */
+    static PixelMapping rotation90(int height) {
+        return new PixelMapping(0, 1, 0, -1, 0, height - 1);
+    }
+
+    /**
+     * Creates a mapping which rotates a source of the specified width by 270° clockwise.
+     * @param width width of the source.
+     * @return a rotating {@code PixelMapping}.
+     */
+    static PixelMapping rotation270(int width) {
+        return new PixelMapping(0, -1, width - 1, 1, 0, 0);
+    }
+
+    /**
+     * Creates a mapping equivalent to transforming an image with this mapping and then transforming the result with
+     * the provided one.
+     * @param next a mapping applied to the result of this one.
+     * @return the combined {@code PixelMapping}.
+     */
+    PixelMapping then(PixelMapping next) {
+        return new PixelMapping(
+                m00 * next.m00 + m01 * next.m10,
+                m00 * next.m01 + m01 * next.m11,
+                m00 * next.m02 + m01 * next.m12 + m02,
+                m10 * next.m00 + m11 * next.m10,
+                m10 * next.m01 + m11 * next.m11,
+                m10 * next.m02 + m11 * next.m12 + m12);
+    }
+
+    /**
+     * Checks whether the mapping reads every target pixel from the same position in the source.
+     * @return {@code true} if this is an identity mapping.
+     */
+    boolean isIdentity() {
+        return m00 == 1 && m01 == 0 && m02 == 0 && m10 == 0 && m11 == 1 && m12 == 0;
+    }
+
+    /**
+     * Checks whether every target row is read from a single source row.
+     * @return {@code true} if the source row depends only on the target row.
+     */
+    boolean preservesRows() {
+        return m10 == 0;
+    }
+
+}
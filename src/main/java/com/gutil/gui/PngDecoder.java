@@ -0,0 +1,255 @@
+package com.gutil.gui;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * PNG decoder producing {@code TYPE_INT_ARGB} or {@code TYPE_INT_RGB} images, the types processed fastest by
+ * {@code PixelEngine}. The image data is inflated and unfiltered one scanline at a time, and every scanline is
+ * converted straight into the {@code int[]} raster, without an intermediate image or color model conversion.
+ * Supports non-interlaced truecolor images with 8-bit RGB or RGBA channels, which decode to the same colors as with
+ * {@code ImageIO}. Other variants (grayscale and indexed images, 16-bit channels, interlacing, transparency chunks) are
+ * left to {@code ImageIO}, which keeps their own color models, such as the palette of indexed images. So are files
+ * with a corrupted chunk, detected by its CRC, with a critical chunk this decoder does not know, or with any other
+ * malformed structure. The color space chunks ({@code gAMA}, {@code sRGB}, {@code iCCP}) are skipped, as they do not
+ * change the colors {@code ImageIO} decodes either.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+final class PngDecoder {
+
+    private static final long SIGNATURE = 0x89504E470D0A1A0AL;
+    private static final int IHDR = 0x49484452;
+    private static final int PLTE = 0x504C5445;
+    private static final int IDAT = 0x49444154;
+    private static final int IEND = 0x49454E44;
+    private static final int TRNS = 0x74524E53;
+    //Set in the type of ancillary chunks, which can be skipped by decoders not knowing them.
+    private static final int ANCILLARY_BIT = 0x20000000;
+
+    private static final int RGB = 2;
+    private static final int RGB_ALPHA = 6;
+
+    private final DataInputStream input;
+    private final Checksum checksum;
+
+    private int width;
+    private int height;
+    private int colorType;
+
+    private int[] pixels;
+    private byte[] previousRow;
+    private byte[] currentRow;
+    private int rowFill;
+    private int y;
+    private int bytesPerPixel;
+
+    private PngDecoder(DataInputStream input, Checksum checksum) {
+        this.input = input;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Decodes a PNG file.
+     * @param file a file to read from.
+     * @return the decoded image, or {@code null} if the file is not a PNG file supported by this decoder.
+     */
+    static BufferedImage read(File file) {
+        CRC32 checksum = new CRC32();
+        try (DataInputStream input = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(new FileInputStream(file), 1 << 16), checksum))) {
+            return new PngDecoder(input, checksum).decode();
+        } catch (IOException | DataFormatException | RuntimeException e) {
+            //Malformed files the checks below miss are left to ImageIO as well, which reports them without crashing.
+            return null;
+        }
+    }
+
+    private BufferedImage decode() throws IOException, DataFormatException {
+        if (input.readLong() != SIGNATURE) {
+            return null;
+        }
+
+        BufferedImage image = null;
+        Inflater inflater = new Inflater();
+        byte[] chunk = new byte[0];
+        try {
+            while (true) {
+                int length = input.readInt();
+                //The CRC covers the chunk type and data.
+                checksum.reset();
+                int type = input.readInt();
+                if (length < 0) {
+                    return null;
+                }
+
+                if (type == IHDR) {
+                    //Only a single header is allowed, before any image data.
+                    if (length != 13 || width != 0 || !readHeader()) {
+                        return null;
+                    }
+                } else if (type == IDAT) {
+                    if (image == null) {
+                        if (width == 0) {
+                            return null;
+                        }
+                        image = createImage();
+                    }
+                    if (chunk.length < length) {
+                        chunk = new byte[length];
+                    }
+                    input.readFully(chunk, 0, length);
+                    inflater.setInput(chunk, 0, length);
+                } else if (type == TRNS) {
+                    //A transparent color key, which ImageIO decodes into an image with alpha.
+                    return null;
+                } else if (type == IEND || type == PLTE || (type & ANCILLARY_BIT) != 0) {
+                    //A palette of a truecolor image only suggests colors for quantization.
+                    input.skipNBytes(length);
+                } else {
+                    return null;
+                }
+
+                if ((int) checksum.getValue() != input.readInt()) {
+                    return null;
+                }
+                if (type == IDAT) {
+                    inflateRows(inflater);
+                } else if (type == IEND) {
+                    return y == height ? image : null;
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return {@code false} if the image variant is not supported.
+     */
+    private boolean readHeader() throws IOException {
+        width = input.readInt();
+        height = input.readInt();
+        int bitDepth = input.readUnsignedByte();
+        colorType = input.readUnsignedByte();
+        int compression = input.readUnsignedByte();
+        int filter = input.readUnsignedByte();
+        int interlace = input.readUnsignedByte();
+
+        return bitDepth == 8 && (colorType == RGB || colorType == RGB_ALPHA) && compression == 0 && filter == 0
+                && interlace == 0 && width > 0 && height > 0 && (long) width * height <= Integer.MAX_VALUE - 8
+                && 1 + 4L * width <= Integer.MAX_VALUE - 8;
+    }
+
+    private BufferedImage createImage() {
+        boolean hasAlpha = colorType == RGB_ALPHA;
+        BufferedImage image = new BufferedImage(width, height, hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        bytesPerPixel = hasAlpha ? 4 : 3;
+        //Every row starts with the filter type.
+        int rowBytes = 1 + width * bytesPerPixel;
+        previousRow = new byte[rowBytes];
+        currentRow = new byte[rowBytes];
+        return image;
+    }
+
+    private void inflateRows(Inflater inflater) throws DataFormatException {
+        while (y < height) {
+            int count = inflater.inflate(currentRow, rowFill, currentRow.length - rowFill);
+            if (count == 0 && (inflater.needsInput() || inflater.finished() || inflater.needsDictionary())) {
+                return;
+            }
+
+            rowFill += count;
+            if (rowFill == currentRow.length) {
+                unfilter();
+                convertRow();
+                byte[] swap = previousRow;
+                previousRow = currentRow;
+                currentRow = swap;
+                rowFill = 0;
+                y++;
+            }
+        }
+    }
+
+    /**
+     * Reverts the filter of the current row, using the already unfiltered previous row.
+     */
+    private void unfilter() throws DataFormatException {
+        byte[] row = currentRow;
+        byte[] previous = previousRow;
+        int filter = row[0];
+        int length = row.length;
+
+        switch (filter) {
+            case 0:
+                break;
+            case 1:
+                for (int i = 1 + bytesPerPixel; i < length; i++) {
+                    row[i] += row[i - bytesPerPixel];
+                }
+                break;
+            case 2:
+                for (int i = 1; i < length; i++) {
+                    row[i] += previous[i];
+                }
+                break;
+            case 3:
+                for (int i = 1; i < length; i++) {
+                    int left = i > bytesPerPixel ? row[i - bytesPerPixel] & 0xFF : 0;
+                    row[i] += (byte) ((left + (previous[i] & 0xFF)) >> 1);
+                }
+                break;
+            case 4:
+                for (int i = 1; i < length; i++) {
+                    int left = i > bytesPerPixel ? row[i - bytesPerPixel] & 0xFF : 0;
+                    int upperLeft = i > bytesPerPixel ? previous[i - bytesPerPixel] & 0xFF : 0;
+                    row[i] += (byte) paeth(left, previous[i] & 0xFF, upperLeft);
+                }
+                break;
+            default:
+                throw new DataFormatException("Unknown filter type: " + filter);
+        }
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    private void convertRow() {
+        byte[] row = currentRow;
+        int offset = y * width;
+        int index = 1;
+
+        if (colorType == RGB_ALPHA) {
+            for (int x = 0; x < width; x++, index += 4) {
+                pixels[offset + x] = (row[index + 3] & 0xFF) << 24 | (row[index] & 0xFF) << 16
+                        | (row[index + 1] & 0xFF) << 8 | (row[index + 2] & 0xFF);
+            }
+        } else {
+            for (int x = 0; x < width; x++, index += 3) {
+                pixels[offset + x] = (row[index] & 0xFF) << 16 | (row[index + 1] & 0xFF) << 8 | (row[index + 2] & 0xFF);
+            }
+        }
+    }
+
+}
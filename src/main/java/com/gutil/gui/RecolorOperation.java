@@ -0,0 +1,220 @@
+package com.gutil.gui;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Color replacement compiled for specific original colors, new colors and thresholds, as performed by
+ * {@link ImageUtil#replaceColor(Image, Color, Color, int)}. The range test of every color channel is precomputed
+ * into a table of 256 bitmasks, so a pixel is classified with three table lookups and an AND, instead of
+ * comparing its channels with the original color. An operation is immutable, and can be created once and applied
+ * to any number of images.
+ * <p>
+ * An operation may combine up to {@value #MAX_REPLACEMENTS} replacements, each with a bit of its own in the masks,
+ * and applies all of them in a single pass. A pixel within the range of several original colors is replaced by
+ * the replacement added first.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public final class RecolorOperation {
+
+    /**
+     * The maximum number of replacements in a single operation.
+     */
+    public static final int MAX_REPLACEMENTS = 32;
+
+    private static final RecolorOperation NONE = new RecolorOperation(new int[256], new int[256], new int[256], new int[0], 0, 0);
+
+    private final int[] redMasks;
+    private final int[] greenMasks;
+    private final int[] blueMasks;
+    private final int[] newRGBs;
+
+    //The original color and threshold of the first replacement, which the Vector API kernels can match faster if it is the only one.
+    private final int originalRGB;
+    private final int threshold;
+
+    private RecolorOperation(int[] redMasks, int[] greenMasks, int[] blueMasks, int[] newRGBs, int originalRGB, int threshold) {
+        this.redMasks = redMasks;
+        this.greenMasks = greenMasks;
+        this.blueMasks = blueMasks;
+        this.newRGBs = newRGBs;
+        this.originalRGB = originalRGB;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Compiles a replacement of the pixels within a threshold of the original color with the new color, preserving
+     * each pixel's alpha.
+     * @param originalColor a {@code Color} to be replaced. If {@code null}, no pixel is replaced.
+     * @param newColor a target {@code Color} to replace the original one.
+     * @param threshold an acceptable difference of every color channel from the original color, between 0 and 255.
+     * @return a new {@code RecolorOperation} instance.
+     */
+    public static RecolorOperation of(Color originalColor, Color newColor, int threshold) {
+        return NONE.and(originalColor, newColor, threshold);
+    }
+
+    /**
+     * Compiles replacements of several colors, all with the same threshold. Replacements take precedence in the
+     * iteration order of the map, so a map with a defined order, such as a {@code LinkedHashMap}, should be used
+     * if the ranges of the original colors overlap.
+     * @param colors a map of the colors to be replaced to their new colors. Entries with a {@code null} key are ignored.
+     * @param threshold an acceptable difference of every color channel from the original colors, between 0 and 255.
+     * @return a new {@code RecolorOperation} instance.
+     */
+    public static RecolorOperation of(Map<Color, Color> colors, int threshold) {
+        RecolorOperation operation = NONE;
+        for (Map.Entry<Color, Color> entry : colors.entrySet()) {
+            operation = operation.and(entry.getKey(), entry.getValue(), threshold);
+        }
+        return operation;
+    }
+
+    /**
+     * Compiles replacements of several colors, each with its own threshold. Replacements take precedence in the order
+     * of the list.
+     * @param replacements replacements to be combined. Replacements with a {@code null} original color are ignored.
+     * @return a new {@code RecolorOperation} instance.
+     */
+    public static RecolorOperation of(List<Replacement> replacements) {
+        RecolorOperation operation = NONE;
+        for (Replacement replacement : replacements) {
+            operation = operation.and(replacement.originalColor(), replacement.newColor(), replacement.threshold());
+        }
+        return operation;
+    }
+
+    /**
+     * Creates an operation performing all replacements of this one, and then replacing the remaining pixels within
+     * a threshold of another original color.
+     * @param originalColor a {@code Color} to be replaced. If {@code null}, no further pixel is replaced.
+     * @param newColor a target {@code Color} to replace the original one.
+     * @param threshold an acceptable difference of every color channel from the original color, between 0 and 255.
+     * @return a new {@code RecolorOperation} instance, or this one if the original color is {@code null}.
+     */
+    public RecolorOperation and(Color originalColor, Color newColor, int threshold) {
+        if (originalColor == null) {
+            return this;
+        }
+
+        if (threshold < 0 || threshold > 255) {
+            throw new IllegalArgumentException("Threshold: " + threshold + " - out of range.");
+        }
+
+        int index = newRGBs.length;
+        if (index == MAX_REPLACEMENTS) {
+            throw new IllegalArgumentException("Cannot combine more than " + MAX_REPLACEMENTS + " replacements.");
+        }
+
+        int[] newRedMasks = redMasks.clone();
+        int[] newGreenMasks = greenMasks.clone();
+        int[] newBlueMasks = blueMasks.clone();
+        fillMasks(newRedMasks, originalColor.getRed(), threshold, 1 << index);
+        fillMasks(newGreenMasks, originalColor.getGreen(), threshold, 1 << index);
+        fillMasks(newBlueMasks, originalColor.getBlue(), threshold, 1 << index);
+
+        int[] replacementRGBs = Arrays.copyOf(newRGBs, index + 1);
+        replacementRGBs[index] = newColor.getRGB() & 0x00FFFFFF;
+
+        if (index == 0) {
+            return new RecolorOperation(newRedMasks, newGreenMasks, newBlueMasks, replacementRGBs, originalColor.getRGB() & 0x00FFFFFF, threshold);
+        }
+        return new RecolorOperation(newRedMasks, newGreenMasks, newBlueMasks, replacementRGBs, originalRGB, this.threshold);
+    }
+
+    /**
+     * Returns the number of combined replacements.
+     * @return the number of original colors replaced by this operation.
+     */
+    public int getReplacementCount() {
+        return newRGBs.length;
+    }
+
+    /**
+     * Sets the bit of a replacement in the mask of every channel value within the threshold of the original value.
+     */
+    private static void fillMasks(int[] masks, int value, int threshold, int bit) {
+        for (int i = Math.max(value - threshold, 0); i <= Math.min(value + threshold, 255); i++) {
+            masks[i] |= bit;
+        }
+    }
+
+    /**
+     * Applies the replacements to a copy of the image, in a single pass.
+     * @param image an {@code Image} to be altered.
+     * @return a new altered {@code Image}. For images with an {@code IndexColorModel} only the palette is altered,
+     * and the resulting image shares its pixel data with the input.
+     */
+    public Image apply(Image image) {
+        return apply(image, null);
+    }
+
+    /**
+     * Applies the replacements in a single pass, writing the result into the destination image.
+     * @param image an {@code Image} to be altered.
+     * @param destination an image of the same size to write to, which may be the input itself,
+     *                    or {@code null} to create a new one.
+     * @return the destination image, or a new {@code Image} if none was provided.
+     */
+    public Image apply(Image image, BufferedImage destination) {
+        BufferedImage originalImage = (BufferedImage) image;
+        if (destination == null && originalImage.getColorModel() instanceof IndexColorModel) {
+            return PixelEngine.mapPalette(originalImage, this::applyAsInt);
+        }
+
+        BufferedImage newImage = ImageUtil.destinationImage(originalImage, destination, originalImage.getWidth(), originalImage.getHeight(), true);
+        PixelEngine.transformRows(originalImage, newImage, rowKernel());
+
+        return newImage;
+    }
+
+    /**
+     * Applies the replacements to a single packed ARGB pixel.
+     * @param argb a packed ARGB pixel.
+     * @return the pixel with its RGB values replaced by the first replacement matching them, if any.
+     */
+    int applyAsInt(int argb) {
+        int match = redMasks[(argb >> 16) & 0xFF] & greenMasks[(argb >> 8) & 0xFF] & blueMasks[argb & 0xFF];
+        return match == 0 ? argb : (argb & 0xFF000000) | newRGBs[Integer.numberOfTrailingZeros(match)];
+    }
+
+    /**
+     * Returns a row kernel applying the replacements to every pixel of a row.
+     * @return a {@code RowKernel} for {@code PixelEngine.transformRows}.
+     */
+    PixelEngine.RowKernel rowKernel() {
+        if (newRGBs.length == 0) {
+            return System::arraycopy;
+        }
+
+        if (newRGBs.length == 1 && ColorKernels.isVectorized()) {
+            BulkColorKernels kernels = ColorKernels.bulk();
+            int newRGB = newRGBs[0];
+            return (source, sourceOffset, target, targetOffset, length) -> kernels.replace(source, sourceOffset,
+                    target, targetOffset, length, originalRGB, newRGB, threshold);
+        }
+        return this::applyRows;
+    }
+
+    private void applyRows(int[] source, int sourceOffset, int[] target, int targetOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetOffset + i] = applyAsInt(source[sourceOffset + i]);
+        }
+    }
+
+    /**
+     * A replacement of the pixels within a threshold of an original color with a new color.
+     * @param originalColor a {@code Color} to be replaced. If {@code null}, no pixel is replaced.
+     * @param newColor a target {@code Color} to replace the original one.
+     * @param threshold an acceptable difference of every color channel from the original color, between 0 and 255.
+     */
+    public record Replacement(Color originalColor, Color newColor, int threshold) {
+    }
+
+}
@@ -0,0 +1,341 @@
+package com.gutil.gui;
+
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Separable image resampling engine. Every output pixel is a weighted sum of the nearby source pixels, computed
+ * first along the rows and then along the columns, using weight tables precomputed once per resize for the chosen
+ * {@code Filter}. Colors are blended with premultiplied alpha, so transparent pixels do not bleed into their
+ * neighbours, and optionally in linear light, converted from and back to sRGB through precomputed tables.
+ * The horizontal pass runs through the {@link ColorKernels#bulk()} kernels, using the Vector API when available.
+ * Bands of output rows are processed in parallel, as described in {@code PixelEngine}.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+final class Resampler {
+
+    /**
+     * Number of entries of the linear light to sRGB table. The sRGB curve is steepest near black, where 4096 steps
+     * still keep every encoded value apart.
+     */
+    private static final int LINEAR_STEPS = 4096;
+
+    /**
+     * Number of zero floats following the channels of a source row and the channel weights of every target pixel,
+     * so that the horizontal pass can read them in whole vectors of up to 256 bits.
+     */
+    static final int PADDING = 8;
+
+    /**
+     * Linear light intensities of the sRGB encoded values, scaled to the 0-255 range.
+     */
+    private static final float[] SRGB_TO_LINEAR = new float[256];
+
+    /**
+     * sRGB encoded values of the linear light intensities, quantized to {@link #LINEAR_STEPS} steps.
+     */
+    private static final int[] LINEAR_TO_SRGB = new int[LINEAR_STEPS];
+
+    static {
+        for (int i = 0; i < SRGB_TO_LINEAR.length; i++) {
+            double value = i / 255.0;
+            double linear = value <= 0.04045 ? value / 12.92 : Math.pow((value + 0.055) / 1.055, 2.4);
+            SRGB_TO_LINEAR[i] = (float) (linear * 255);
+        }
+        for (int i = 0; i < LINEAR_STEPS; i++) {
+            double linear = (double) i / (LINEAR_STEPS - 1);
+            double value = linear <= 0.0031308 ? linear * 12.92 : 1.055 * Math.pow(linear, 1 / 2.4) - 0.055;
+            LINEAR_TO_SRGB[i] = (int) Math.round(value * 255);
+        }
+    }
+
+    /**
+     * Resampling filters, defined by their weight function and its support radius in source pixels.
+     */
+    enum Filter {
+
+        BOX(0.5) {
+            @Override
+            double weight(double x) {
+                return x >= -0.5 && x < 0.5 ? 1 : 0;
+            }
+        },
+
+        TRIANGLE(1) {
+            @Override
+            double weight(double x) {
+                return Math.max(0, 1 - Math.abs(x));
+            }
+        },
+
+        /**
+         * Mitchell-Netravali cubic filter with B = C = 1/3.
+         */
+        MITCHELL(2) {
+            @Override
+            double weight(double x) {
+                double b = 1.0 / 3;
+                double c = 1.0 / 3;
+                x = Math.abs(x);
+                if (x < 1) {
+                    return ((12 - 9 * b - 6 * c) * x * x * x + (-18 + 12 * b + 6 * c) * x * x + (6 - 2 * b)) / 6;
+                }
+                if (x < 2) {
+                    return ((-b - 6 * c) * x * x * x + (6 * b + 30 * c) * x * x + (-12 * b - 48 * c) * x + (8 * b + 24 * c)) / 6;
+                }
+                return 0;
+            }
+        },
+
+        LANCZOS3(3) {
+            @Override
+            double weight(double x) {
+                if (x == 0) {
+                    return 1;
+                }
+                if (Math.abs(x) >= 3) {
+                    return 0;
+                }
+                double px = Math.PI * x;
+                return 3 * Math.sin(px) * Math.sin(px / 3) / (px * px);
+            }
+        };
+
+        private final double support;
+
+        Filter(double support) {
+            this.support = support;
+        }
+
+        abstract double weight(double x);
+
+    }
+
+    /**
+     * Resamples the image into the target image, overwriting all of its pixels.
+     * @param source an image to be resampled.
+     * @param target an image of the resampled size to write to, other than the source.
+     * @param filter a filter used to weight the source pixels.
+     */
+    static void resample(BufferedImage source, BufferedImage target, Filter filter) {
+        resample(source, target, filter, false);
+    }
+
+    /**
+     * Resamples the image into the target image, overwriting all of its pixels.
+     * @param source an image to be resampled.
+     * @param target an image of the resampled size to write to, other than the source.
+     * @param filter a filter used to weight the source pixels.
+     * @param linear should the colors be blended in linear light, instead of their sRGB encoded values.
+     */
+    static void resample(BufferedImage source, BufferedImage target, Filter filter, boolean linear) {
+        boolean opaque = source.getTransparency() == Transparency.OPAQUE;
+        int targetWidth = target.getWidth();
+        int targetHeight = target.getHeight();
+
+        Weights horizontalWeights = new Weights(source.getWidth(), targetWidth, filter);
+        Weights verticalWeights = new Weights(source.getHeight(), targetHeight, filter);
+        boolean concurrent = PixelEngine.supportsConcurrentRows(source) && PixelEngine.supportsConcurrentRows(target);
+
+        PixelEngine.forEachBand(targetWidth, targetHeight, concurrent, (fromY, toY) ->
+                resampleRows(source, target, horizontalWeights, verticalWeights, opaque, linear, fromY, toY));
+    }
+
+    /**
+     * Produces the target rows between {@code fromY} (inclusive) and {@code toY} (exclusive). Only the source rows
+     * contributing to those target rows are resampled horizontally, each of them once, into a window of rows local
+     * to this band. The window holds just the rows of a single target row, so it stays small enough for the cache.
+     */
+    private static void resampleRows(BufferedImage source, BufferedImage target, Weights horizontalWeights,
+                                     Weights verticalWeights, boolean opaque, boolean linear, int fromY, int toY) {
+        int sourceWidth = source.getWidth();
+        int targetWidth = target.getWidth();
+
+        //The source row r is kept at position r % windowRows, which is enough for the rows of any single target row.
+        int rowLength = targetWidth * 4;
+        int windowRows = verticalWeights.stride;
+        float[] rows = new float[windowRows * rowLength];
+        int[] windowSourceY = new int[windowRows];
+        Arrays.fill(windowSourceY, -1);
+
+        int[] sourceRow = new int[sourceWidth];
+        float[] sourceChannels = new float[sourceWidth * 4 + PADDING];
+        float[] accumulator = new float[rowLength];
+        int[] targetRow = new int[targetWidth];
+        BulkColorKernels kernels = ColorKernels.bulk();
+
+        for (int y = fromY; y < toY; y++) {
+            int firstSourceY = verticalWeights.start[y];
+            int lastSourceY = firstSourceY + verticalWeights.count[y];
+
+            //Horizontal pass: premultiplied ARGB channels of the source rows not in the window yet.
+            for (int sourceY = firstSourceY; sourceY < lastSourceY; sourceY++) {
+                int position = sourceY % windowRows;
+                if (windowSourceY[position] != sourceY) {
+                    PixelEngine.readRow(source, sourceY, sourceRow);
+                    toChannels(sourceRow, sourceChannels, opaque, linear);
+                    kernels.resample(sourceChannels, rows, position * rowLength, targetWidth, horizontalWeights.start,
+                            horizontalWeights.count, horizontalWeights.channelValues, horizontalWeights.channelStride);
+                    windowSourceY[position] = sourceY;
+                }
+            }
+
+            //Vertical pass: weighted sum of whole intermediate rows.
+            Arrays.fill(accumulator, 0);
+            int weightIndex = y * verticalWeights.stride;
+            for (int sourceY = firstSourceY; sourceY < lastSourceY; sourceY++) {
+                float weight = verticalWeights.values[weightIndex++];
+                int rowOffset = (sourceY % windowRows) * rowLength;
+                for (int j = 0; j < rowLength; j++) {
+                    accumulator[j] += weight * rows[rowOffset + j];
+                }
+            }
+
+            toPixels(accumulator, targetRow, opaque, linear);
+            PixelEngine.writeRow(target, y, targetRow);
+        }
+    }
+
+    /**
+     * Unpacks ARGB pixels into alpha and premultiplied color channels, converting the colors to linear light if requested.
+     */
+    private static void toChannels(int[] pixels, float[] channels, boolean opaque, boolean linear) {
+        for (int x = 0; x < pixels.length; x++) {
+            int argb = pixels[x];
+            int index = x * 4;
+            float alpha = opaque ? 255 : argb >>> 24;
+            float scale = alpha / 255;
+            channels[index] = alpha;
+            if (linear) {
+                channels[index + 1] = SRGB_TO_LINEAR[(argb >> 16) & 0xFF] * scale;
+                channels[index + 2] = SRGB_TO_LINEAR[(argb >> 8) & 0xFF] * scale;
+                channels[index + 3] = SRGB_TO_LINEAR[argb & 0xFF] * scale;
+            } else if (opaque) {
+                channels[index + 1] = (argb >> 16) & 0xFF;
+                channels[index + 2] = (argb >> 8) & 0xFF;
+                channels[index + 3] = argb & 0xFF;
+            } else {
+                channels[index + 1] = ((argb >> 16) & 0xFF) * scale;
+                channels[index + 2] = ((argb >> 8) & 0xFF) * scale;
+                channels[index + 3] = (argb & 0xFF) * scale;
+            }
+        }
+    }
+
+    /**
+     * Packs alpha and premultiplied color channels back into ARGB pixels, clamping values out of range and converting
+     * the colors from linear light if requested.
+     */
+    private static void toPixels(float[] channels, int[] pixels, boolean opaque, boolean linear) {
+        for (int x = 0; x < pixels.length; x++) {
+            int index = x * 4;
+            float alpha = opaque ? 255 : Math.min(255, channels[index]);
+            if (alpha <= 0) {
+                pixels[x] = 0;
+                continue;
+            }
+
+            float scale = 255 / alpha;
+            if (linear) {
+                scale *= (LINEAR_STEPS - 1) / 255f;
+                pixels[x] = (Math.round(alpha) << 24)
+                        | (LINEAR_TO_SRGB[clampLinear(channels[index + 1] * scale)] << 16)
+                        | (LINEAR_TO_SRGB[clampLinear(channels[index + 2] * scale)] << 8)
+                        | LINEAR_TO_SRGB[clampLinear(channels[index + 3] * scale)];
+                continue;
+            }
+            pixels[x] = (Math.round(alpha) << 24)
+                    | (clamp(channels[index + 1] * scale) << 16)
+                    | (clamp(channels[index + 2] * scale) << 8)
+                    | clamp(channels[index + 3] * scale);
+        }
+    }
+
+    private static int clamp(float value) {
+        return Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    private static int clampLinear(float value) {
+        return Math.max(0, Math.min(LINEAR_STEPS - 1, Math.round(value)));
+    }
+
+    /**
+     * Normalized filter weights of the source pixels contributing to every target pixel along one dimension.
+     */
+    private static final class Weights {
+
+        /**
+         * Index of the first contributing source pixel, for every target pixel.
+         */
+        final int[] start;
+
+        /**
+         * Number of contributing source pixels, for every target pixel.
+         */
+        final int[] count;
+
+        /**
+         * Weights of the contributing source pixels, {@link #stride} values reserved for every target pixel.
+         */
+        final float[] values;
+        final int stride;
+
+        /**
+         * The same weights repeated for the four channels of every pixel, {@link #channelStride} values reserved for
+         * every target pixel, zero past the last contributing pixel.
+         */
+        final float[] channelValues;
+        final int channelStride;
+
+        Weights(int sourceSize, int targetSize, Filter filter) {
+            double scale = (double) targetSize / sourceSize;
+            //When downscaling, the filter is stretched to cover all source pixels falling into a target pixel.
+            double filterScale = Math.min(scale, 1);
+            double support = filter.support / filterScale;
+
+            start = new int[targetSize];
+            count = new int[targetSize];
+            stride = (int) Math.ceil(support * 2) + 2;
+            values = new float[targetSize * stride];
+
+            for (int i = 0; i < targetSize; i++) {
+                double center = (i + 0.5) / scale;
+                int left = Math.max(0, (int) Math.floor(center - support));
+                int right = Math.min(sourceSize, (int) Math.ceil(center + support));
+
+                double sum = 0;
+                for (int j = left; j < right; j++) {
+                    double weight = filter.weight((j + 0.5 - center) * filterScale);
+                    values[i * stride + j - left] = (float) weight;
+                    sum += weight;
+                }
+
+                if (sum == 0) {
+                    //No source pixel within the filter support, using the nearest one.
+                    left = Math.min(sourceSize - 1, (int) center);
+                    right = left + 1;
+                    values[i * stride] = 1;
+                    sum = 1;
+                }
+
+                for (int j = 0; j < right - left; j++) {
+                    values[i * stride + j] /= (float) sum;
+                }
+                start[i] = left;
+                count[i] = right - left;
+            }
+
+            channelStride = stride * 4 + PADDING;
+            channelValues = new float[targetSize * channelStride];
+            for (int i = 0; i < targetSize; i++) {
+                for (int j = 0; j < count[i] * 4; j++) {
+                    channelValues[i * channelStride + j] = values[i * stride + j / 4];
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.gutil.gui;
+
+import java.awt.Dimension;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of resized images, keyed by the source image identity, the target dimensions and the resize quality.
+ * Source images are only weakly referenced, so caching never prevents them from being garbage collected, and entries
+ * of collected sources are dropped. The total size of the cached images is limited by a byte budget, and the least
+ * recently used entries are evicted first. Cached images are shared between callers and must not be modified.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public class ResizeCache {
+
+    private static final ResizeCache DEFAULT_CACHE = new ResizeCache(64L << 20);
+
+    private final long maxBytes;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReferenceQueue<Image> collectedSources = new ReferenceQueue<>();
+
+    private long bytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates an empty cache.
+     * @param maxBytes the maximum total size of the cached images, in bytes.
+     */
+    public ResizeCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size cannot be less than 0: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cache shared by the components of this library, limited to 64 MB.
+     * @return the default {@code ResizeCache}.
+     */
+    public static ResizeCache getDefault() {
+        return DEFAULT_CACHE;
+    }
+
+    /**
+     * Returns a resized version of the input, as described in {@link ImageUtil#resize(Image, int, int, ResizeQuality)}.
+     * The image is only resized if the same source was not resized to the same dimensions and quality before.
+     * @param image an {@code Image} to be resized.
+     * @param targetWidth a target width of the resized image.
+     * @param targetHeight a target height of the resized image.
+     * @param quality a constant value determining the scaling algorithm.
+     * @return a resized version of an {@code Image}, possibly shared with other callers.
+     */
+    public Image resize(Image image, int targetWidth, int targetHeight, ResizeQuality quality) {
+        int imageWidth = image.getWidth(null);
+        int imageHeight = image.getHeight(null);
+        Dimension targetSize = ImageUtil.resizedSize(imageWidth, imageHeight, targetWidth, targetHeight);
+        if (targetSize.width == imageWidth && targetSize.height == imageHeight) {
+            return image;
+        }
+
+        Key key = new Key(image, targetSize.width, targetSize.height, quality, collectedSources);
+        synchronized (this) {
+            removeCollectedSources();
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hitCount++;
+                return entry.image;
+            }
+            missCount++;
+        }
+
+        Image resizedImage = ImageUtil.resize(image, targetSize.width, targetSize.height, quality);
+        long size = sizeOf(resizedImage);
+
+        synchronized (this) {
+            if (size <= maxBytes) {
+                Entry previous = entries.put(key, new Entry(resizedImage, size));
+                bytes += size - (previous != null ? previous.bytes : 0);
+                evictToBudget();
+            }
+        }
+        return resizedImage;
+    }
+
+    /**
+     * Removes all cached images. The hit, miss and eviction counters are left unchanged.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns the number of resizes answered with a cached image.
+     * @return the number of cache hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of resizes which had to be computed.
+     * @return the number of cache misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of cached images removed to stay within the byte budget.
+     * @return the number of evictions.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the current total size of the cached images.
+     * @return the size of the cached images, in bytes.
+     */
+    public synchronized long getSize() {
+        return bytes;
+    }
+
+    /**
+     * Returns the maximum total size of the cached images.
+     * @return the byte budget of this cache.
+     */
+    public long getMaxSize() {
+        return maxBytes;
+    }
+
+    private void evictToBudget() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= iterator.next().bytes;
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    private void removeCollectedSources() {
+        Reference<? extends Image> reference;
+        while ((reference = collectedSources.poll()) != null) {
+            Entry entry = entries.remove(reference);
+            if (entry != null) {
+                bytes -= entry.bytes;
+            }
+        }
+    }
+
+    /**
+     * Estimates the memory used by the pixels of an image.
+     * @param image an image to be measured.
+     * @return the size of the image raster in bytes.
+     */
+    static long sizeOf(Image image) {
+        if (image instanceof BufferedImage bufferedImage) {
+            DataBuffer buffer = bufferedImage.getRaster().getDataBuffer();
+            return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+        }
+        return 4L * image.getWidth(null) * image.getHeight(null);
+    }
+
+    /**
+     * Cache key referencing the source image weakly, and comparing it by identity.
+     */
+    private static class Key extends WeakReference<Image> {
+
+        private final int hash;
+        private final int width;
+        private final int height;
+        private final ResizeQuality quality;
+
+        Key(Image source, int width, int height, ResizeQuality quality, ReferenceQueue<Image> queue) {
+            super(source, queue);
+            this.width = width;
+            this.height = height;
+            this.quality = quality;
+            this.hash = 31 * (31 * (31 * System.identityHashCode(source) + width) + height) + quality.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Key key)) {
+                return false;
+            }
+            Image source = get();
+            return source != null && source == key.get() && width == key.width && height == key.height && quality == key.quality;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    private record Entry(Image image, long bytes) {
+    }
+
+}
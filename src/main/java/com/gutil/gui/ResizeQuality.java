@@ -7,7 +7,40 @@ package com.gutil.gui;
  */
 public enum ResizeQuality {
 
+    /**
+     * Nearest neighbour scaling. Very fast, but might result in an image of a lower quality.
+     */
     LOW,
-    HIGH
+
+    /**
+     * Progressive bilinear scaling, halving or doubling the image until it reaches the target size.
+     */
+    HIGH,
+
+    /**
+     * Separable box filter resampling. Averages all source pixels covered by a target pixel when downscaling.
+     */
+    BOX,
+
+    /**
+     * Separable bilinear (triangle filter) resampling.
+     */
+    BILINEAR,
+
+    /**
+     * Separable bicubic (Mitchell-Netravali filter) resampling. A sharp result without visible ringing.
+     */
+    BICUBIC,
+
+    /**
+     * Separable Lanczos resampling with a support of 3 pixels. The sharpest result, with a slight ringing on edges.
+     */
+    LANCZOS3,
+
+    /**
+     * Separable bicubic resampling, as {@link #BICUBIC}, blending colors in linear light instead of their sRGB encoded
+     * values. Fine bright details, such as thin lines of downscaled icons, keep their brightness instead of darkening.
+     */
+    LINEAR_LIGHT
 
 }
@@ -0,0 +1,67 @@
+package com.gutil.gui;
+
+/**
+ * Portable {@code BulkColorKernels} implementation, processing one pixel at a time.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+final class ScalarColorKernels implements BulkColorKernels {
+
+    @Override
+    public void invert(int[] source, int sourceOffset, int[] target, int targetOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetOffset + i] = ColorKernels.invert(source[sourceOffset + i]);
+        }
+    }
+
+    @Override
+    public void grayscale(int[] source, int sourceOffset, int[] target, int targetOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetOffset + i] = ColorKernels.grayscale(source[sourceOffset + i]);
+        }
+    }
+
+    @Override
+    public void replace(int[] source, int sourceOffset, int[] target, int targetOffset, int length,
+                        int originalRGB, int newRGB, int threshold) {
+        int red = (originalRGB >> 16) & 0xFF;
+        int green = (originalRGB >> 8) & 0xFF;
+        int blue = originalRGB & 0xFF;
+
+        for (int i = 0; i < length; i++) {
+            int argb = source[sourceOffset + i];
+            target[targetOffset + i] = Math.abs(((argb >> 16) & 0xFF) - red) <= threshold
+                    && Math.abs(((argb >> 8) & 0xFF) - green) <= threshold
+                    && Math.abs((argb & 0xFF) - blue) <= threshold
+                    ? (argb & 0xFF000000) | newRGB : argb;
+        }
+    }
+
+    @Override
+    public void resample(float[] source, float[] target, int targetOffset, int length,
+                         int[] start, int[] count, float[] weights, int stride) {
+        for (int x = 0; x < length; x++) {
+            float alpha = 0;
+            float red = 0;
+            float green = 0;
+            float blue = 0;
+            int weightIndex = x * stride;
+            int channelIndex = start[x] * 4;
+            for (int i = 0; i < count[x]; i++) {
+                float weight = weights[weightIndex];
+                alpha += weight * source[channelIndex];
+                red += weight * source[channelIndex + 1];
+                green += weight * source[channelIndex + 2];
+                blue += weight * source[channelIndex + 3];
+                weightIndex += 4;
+                channelIndex += 4;
+            }
+            int index = targetOffset + x * 4;
+            target[index] = alpha;
+            target[index + 1] = red;
+            target[index + 2] = green;
+            target[index + 3] = blue;
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.gutil.gui;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pool of reusable images, keyed by their width, height and type. {@code ImageUtil} operations, {@code ImagePipeline}
+ * and the resize methods take their new images from the default pool, and return the temporary images they create
+ * along the way. Images no longer needed by the caller, such as the previous frame of an animation, can be released
+ * to the pool as well, so that processing images of the same size over and over does not allocate new ones.
+ * <p>
+ * The total size of the pooled images is limited by a byte budget, and the images of the least recently used sizes
+ * are dropped first. An image must not be used in any way after it is released.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public class ScratchImagePool {
+
+    private static final ScratchImagePool DEFAULT_POOL = new ScratchImagePool(32L << 20);
+
+    private final long maxBytes;
+    private final Map<Key, ArrayDeque<BufferedImage>> images = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes;
+
+    /**
+     * Creates an empty pool.
+     * @param maxBytes the maximum total size of the pooled images, in bytes.
+     */
+    public ScratchImagePool(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Pool size cannot be less than 0: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the pool used by the operations of this library, limited to 32 MB.
+     * @return the default {@code ScratchImagePool}.
+     */
+    public static ScratchImagePool getDefault() {
+        return DEFAULT_POOL;
+    }
+
+    /**
+     * Returns a pooled image of the specified size and type, or a new one if there is none. A pooled image still holds
+     * the pixels of its previous use, so the caller is expected to overwrite all of them.
+     * @param width width of the image.
+     * @param height height of the image.
+     * @param type one of the predefined {@code BufferedImage} types, other than {@code TYPE_CUSTOM}.
+     * @return a {@code BufferedImage} owned by the caller until it is released.
+     */
+    public BufferedImage acquire(int width, int height, int type) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image width and height must be positive numbers: " + width + ", " + height);
+        }
+
+        Key key = new Key(width, height, type);
+        synchronized (this) {
+            ArrayDeque<BufferedImage> pooledImages = images.get(key);
+            if (pooledImages != null) {
+                BufferedImage image = pooledImages.pollLast();
+                if (pooledImages.isEmpty()) {
+                    images.remove(key);
+                }
+                bytes -= ResizeCache.sizeOf(image);
+                return image;
+            }
+        }
+        return new BufferedImage(width, height, type);
+    }
+
+    /**
+     * Returns an image with the same color model and raster layout as the provided one, taken from the pool if its
+     * type is one of the predefined ones.
+     */
+    BufferedImage acquireCompatible(BufferedImage image, int width, int height) {
+        if (!PixelEngine.hasPredefinedType(image)) {
+            return PixelEngine.createCompatibleImage(image, width, height);
+        }
+        return acquire(width, height, image.getType());
+    }
+
+    /**
+     * Returns an image to the pool, to be handed out by a later {@link #acquire(int, int, int)} call. Images whose
+     * color model is not fully determined by their type, such as custom and indexed images, subimages and images larger
+     * than the whole budget are not pooled. Neither are the recolored indexed images, which share their pixel data with
+     * the original image. An image sharing its raster with an image still in use must not be released.
+     * @param image an image which will not be used by the caller anymore, or {@code null}.
+     */
+    public void release(BufferedImage image) {
+        if (image == null || !PixelEngine.hasPredefinedType(image) || image.getRaster().getParent() != null) {
+            return;
+        }
+
+        long size = ResizeCache.sizeOf(image);
+        if (size > maxBytes) {
+            return;
+        }
+
+        synchronized (this) {
+            ArrayDeque<BufferedImage> pooledImages = images.computeIfAbsent(new Key(image.getWidth(), image.getHeight(), image.getType()),
+                    key -> new ArrayDeque<>());
+            for (BufferedImage pooledImage : pooledImages) {
+                if (pooledImage == image) {
+                    return;
+                }
+            }
+            pooledImages.addLast(image);
+            bytes += size;
+            evictToBudget();
+        }
+    }
+
+    /**
+     * Removes all pooled images.
+     */
+    public synchronized void clear() {
+        images.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns the current total size of the pooled images.
+     * @return the size of the pooled images, in bytes.
+     */
+    public synchronized long getSize() {
+        return bytes;
+    }
+
+    /**
+     * Returns the maximum total size of the pooled images.
+     * @return the byte budget of this pool.
+     */
+    public long getMaxSize() {
+        return maxBytes;
+    }
+
+    private void evictToBudget() {
+        Iterator<ArrayDeque<BufferedImage>> iterator = images.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            ArrayDeque<BufferedImage> pooledImages = iterator.next();
+            while (bytes > maxBytes && !pooledImages.isEmpty()) {
+                bytes -= ResizeCache.sizeOf(pooledImages.pollFirst());
+            }
+            if (pooledImages.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Pool key of the images of the same size and type.
+     */
+    private record Key(int width, int height, int type) {
+    }
+
+}
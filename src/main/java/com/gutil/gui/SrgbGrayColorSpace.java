@@ -0,0 +1,52 @@
+package com.gutil.gui;
+
+import java.awt.color.ColorSpace;
+import java.io.Serial;
+
+/**
+ * Single component gray color space whose values are sRGB gray levels, the red, green and blue components of the
+ * same sRGB color. Unlike the linear {@code CS_GRAY} color space, a color model based on it reports and draws its
+ * samples as the same gray levels as a packed ARGB image with equal color components.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+final class SrgbGrayColorSpace extends ColorSpace {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    static final SrgbGrayColorSpace INSTANCE = new SrgbGrayColorSpace();
+
+    private SrgbGrayColorSpace() {
+        super(ColorSpace.TYPE_GRAY, 1);
+    }
+
+    @Override
+    public float[] toRGB(float[] colorValue) {
+        return new float[] {colorValue[0], colorValue[0], colorValue[0]};
+    }
+
+    /**
+     * Returns the mean of the sRGB components, the same gray level as {@link ColorKernels#grayscale(int)}.
+     */
+    @Override
+    public float[] fromRGB(float[] rgbValue) {
+        return new float[] {(rgbValue[0] + rgbValue[1] + rgbValue[2]) / 3};
+    }
+
+    @Override
+    public float[] toCIEXYZ(float[] colorValue) {
+        return getInstance(CS_sRGB).toCIEXYZ(toRGB(colorValue));
+    }
+
+    @Override
+    public float[] fromCIEXYZ(float[] colorValue) {
+        return fromRGB(getInstance(CS_sRGB).fromCIEXYZ(colorValue));
+    }
+
+    @Serial
+    private Object readResolve() {
+        return INSTANCE;
+    }
+
+}
@@ -0,0 +1,380 @@
+package com.gutil.gui;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Vector;
+
+/**
+ * Chain of crop and color operations performed from one image file to another without loading the whole image into
+ * memory. The image is decoded in strips of full-width rows, using {@code ImageReader} source regions, and every strip
+ * is processed and handed to the {@code ImageWriter} as soon as it asks for those rows, so the memory used depends on
+ * the strip size rather than on the image size.
+ * <p>
+ * Memory stays bounded only with writers requesting the image piece by piece, such as the PNG, BMP and TIFF writers.
+ * Also, some formats (PNG among them) can only be decoded sequentially, so reading a strip decodes and discards all
+ * rows above it. Taller strips reduce that overhead.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+public class StreamingImagePipeline {
+
+    /**
+     * Approximate number of pixels in a single strip, unless set otherwise.
+     */
+    private static final int STRIP_PIXELS = 1 << 22;
+
+    private final File source;
+    private final boolean hasAlpha;
+    private Rectangle bounds;
+    private PixelEngine.RowKernel kernel;
+    private int stripHeight;
+
+    private StreamingImagePipeline(File source, int width, int height, boolean hasAlpha) {
+        this.source = source;
+        this.hasAlpha = hasAlpha;
+        this.bounds = new Rectangle(width, height);
+        this.stripHeight = Math.max(1, STRIP_PIXELS / width);
+    }
+
+    /**
+     * Starts a new chain of operations on an image file. Only the image header is read.
+     * @param imageFile a {@code File} to read from.
+     * @return a new {@code StreamingImagePipeline} instance, or {@code null} if the file cannot be read.
+     */
+    public static StreamingImagePipeline of(File imageFile) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imageFile)) {
+            ImageReader reader = input != null ? firstReader(input) : null;
+            if (reader == null) {
+                return null;
+            }
+
+            try {
+                reader.setInput(input, true, true);
+                ImageTypeSpecifier imageType = reader.getRawImageType(0);
+                if (imageType == null) {
+                    imageType = reader.getImageTypes(0).next();
+                }
+                return new StreamingImagePipeline(imageFile, reader.getWidth(0), reader.getHeight(0),
+                        imageType.getColorModel().hasAlpha());
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the number of rows decoded and processed at once.
+     * @param rows height of a strip, greater than 0.
+     * @return this {@code StreamingImagePipeline} instance.
+     */
+    public StreamingImagePipeline setStripHeight(int rows) {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("Strip height must be a positive number: " + rows);
+        }
+        this.stripHeight = rows;
+        return this;
+    }
+
+    /**
+     * Adds a crop, as described in {@link ImageUtil#crop(Image, int, int, int, int)}.
+     * @param top a value to be cropped at the top.
+     * @param right a value to be cropped on the right side.
+     * @param bottom a value to be cropped at the bottom.
+     * @param left a value to be cropped on the left side.
+     * @return this {@code StreamingImagePipeline} instance.
+     */
+    public StreamingImagePipeline crop(int top, int right, int bottom, int left) {
+        return crop(ImageUtil.cropBounds(bounds.width, bounds.height, top, right, bottom, left));
+    }
+
+    /**
+     * Adds a crop, as described in {@link ImageUtil#cropByPercentage(Image, int, int, int, int)}.
+     * @param top a value to be cropped at the top.
+     * @param right a value to be cropped on the right side.
+     * @param bottom a value to be cropped at the bottom.
+     * @param left a value to be cropped on the left side.
+     * @return this {@code StreamingImagePipeline} instance.
+     */
+    public StreamingImagePipeline cropByPercentage(int top, int right, int bottom, int left) {
+        return crop(ImageUtil.percentageCropBounds(bounds.width, bounds.height, top, right, bottom, left));
+    }
+
+    private StreamingImagePipeline crop(Rectangle cropBounds) {
+        bounds = new Rectangle(bounds.x + cropBounds.x, bounds.y + cropBounds.y, cropBounds.width, cropBounds.height);
+        return this;
+    }
+
+    /**
+     * Adds a color inversion, as described in {@link ImageUtil#invertColors(Image)}.
+     * @return this {@code StreamingImagePipeline} instance.
+     */
+    public StreamingImagePipeline invertColors() {
+        return apply(ColorKernels.bulk()::invert);
+    }
+
+    /**
+     * Adds a grayscale conversion, as described in {@link ImageUtil#convertToGrayscale(Image)}.
+     * @return this {@code StreamingImagePipeline} instance.
+     */
+    public StreamingImagePipeline convertToGrayscale() {
+        return apply(ColorKernels.bulk()::grayscale);
+    }
+
+    /**
+     * Adds a channel adjustment, as described in {@link ImageUtil#adjust(Image, ColorAdjustment)}.
+     * @param adjustment a {@code ColorAdjustment} to be applied to every pixel.
+     * @return this {@code StreamingImagePipeline} instance.
+     */
+    public StreamingImagePipeline adjust(ColorAdjustment adjustment) {
+        return apply(adjustment.rowKernel());
+    }
+
+    /**
+     * Adds a color replacement, as described in {@link ImageUtil#replaceColor(Image, Color, Color, int)}.
+     * @param originalColor a {@code Color} to be replaced.
+     * @param newColor a target {@code Color} to replace the original one.
+     * @param threshold an acceptable difference from the original color to still qualify for a replacement.
+     * @return this {@code StreamingImagePipeline} instance.
+     */
+    public StreamingImagePipeline replaceColor(Color originalColor, Color newColor, int threshold) {
+        return apply(ColorKernels.replaceRows(originalColor, newColor, threshold));
+    }
+
+    private StreamingImagePipeline apply(PixelEngine.RowKernel nextKernel) {
+        kernel = kernel == null ? nextKernel : kernel.andThen(nextKernel);
+        return this;
+    }
+
+    /**
+     * Performs all recorded operations, writing the result to a file without throwing exceptions on failure.
+     * The result is encoded as {@code TYPE_INT_ARGB} or {@code TYPE_INT_RGB} pixels, depending on the source transparency.
+     * It is written to a temporary file first, so the target can also be the source file, and a failed write leaves
+     * an existing target unchanged.
+     * @param target a {@code File} to write to. An existing file is replaced.
+     * @param formatName an informal name of the target format, such as {@code "png"}.
+     * @return {@code true} if the image was written, {@code false} if there is no writer for the format or writing failed.
+     */
+    public boolean write(File target, String formatName) {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+        if (!writers.hasNext()) {
+            return false;
+        }
+
+        ImageWriter writer = writers.next();
+        try {
+            return AtomicFileWriter.write(target.toPath(), file -> write(writer, file.toFile()));
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private boolean write(ImageWriter writer, File target) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source);
+             ImageOutputStream output = ImageIO.createImageOutputStream(target)) {
+            ImageReader reader = input != null ? firstReader(input) : null;
+            if (reader == null || output == null) {
+                return false;
+            }
+
+            try {
+                reader.setInput(input, false, true);
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(new StripImage(reader), null, null), null);
+                return true;
+            } finally {
+                reader.dispose();
+            }
+        } catch (RuntimeException e) {
+            //Read failures wrapped in UncheckedIOException, and plugin or kernel failures, as in ImageUtil.encode.
+            return false;
+        }
+    }
+
+    private static ImageReader firstReader(ImageInputStream input) {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        return readers.hasNext() ? readers.next() : null;
+    }
+
+    /**
+     * Result image, decoded and processed strip by strip when its pixels are requested. Every strip is a tile
+     * spanning the whole width of the image. The most recently used strip is kept, so that a writer requesting
+     * consecutive rows causes every strip to be decoded only once.
+     */
+    private class StripImage implements RenderedImage {
+
+        private final ImageReader reader;
+        private final ColorModel colorModel;
+        private final SampleModel sampleModel;
+        private final BufferedImage stripImage;
+
+        private int cachedStrip = -1;
+
+        StripImage(ImageReader reader) {
+            this.reader = reader;
+            this.colorModel = hasAlpha ? ColorModel.getRGBdefault() : new DirectColorModel(24, 0xFF0000, 0xFF00, 0xFF);
+            this.sampleModel = colorModel.createCompatibleSampleModel(bounds.width, stripHeight);
+            this.stripImage = new BufferedImage(colorModel, Raster.createWritableRaster(sampleModel, null), false, null);
+        }
+
+        private Raster strip(int strip) {
+            if (strip != cachedStrip) {
+                int y = strip * stripHeight;
+                int rows = Math.min(stripHeight, bounds.height - y);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle(bounds.x, bounds.y + y, bounds.width, rows));
+
+                BufferedImage decodedStrip;
+                try {
+                    decodedStrip = reader.read(0, param);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                BufferedImage targetStrip = stripImage.getSubimage(0, 0, bounds.width, rows);
+                PixelEngine.transformRows(decodedStrip, targetStrip, kernel != null ? kernel : System::arraycopy);
+                cachedStrip = strip;
+            }
+            return stripImage.getRaster().createTranslatedChild(0, strip * stripHeight);
+        }
+
+        @Override
+        public Raster getTile(int tileX, int tileY) {
+            return strip(tileY);
+        }
+
+        @Override
+        public Raster getData() {
+            return getData(new Rectangle(bounds.width, bounds.height));
+        }
+
+        @Override
+        public Raster getData(Rectangle rectangle) {
+            SampleModel rectangleModel = sampleModel.createCompatibleSampleModel(rectangle.width, rectangle.height);
+            return copyData(Raster.createWritableRaster(rectangleModel, new Point(rectangle.x, rectangle.y)));
+        }
+
+        @Override
+        public WritableRaster copyData(WritableRaster raster) {
+            if (raster == null) {
+                return (WritableRaster) getData();
+            }
+
+            int fromY = Math.max(0, raster.getMinY());
+            int toY = Math.min(bounds.height, raster.getMinY() + raster.getHeight());
+            for (int strip = fromY / stripHeight; strip * stripHeight < toY; strip++) {
+                raster.setRect(strip(strip));
+            }
+            return raster;
+        }
+
+        @Override
+        public Vector<RenderedImage> getSources() {
+            return null;
+        }
+
+        @Override
+        public Object getProperty(String name) {
+            return Image.UndefinedProperty;
+        }
+
+        @Override
+        public String[] getPropertyNames() {
+            return null;
+        }
+
+        @Override
+        public ColorModel getColorModel() {
+            return colorModel;
+        }
+
+        @Override
+        public SampleModel getSampleModel() {
+            return sampleModel;
+        }
+
+        @Override
+        public int getWidth() {
+            return bounds.width;
+        }
+
+        @Override
+        public int getHeight() {
+            return bounds.height;
+        }
+
+        @Override
+        public int getMinX() {
+            return 0;
+        }
+
+        @Override
+        public int getMinY() {
+            return 0;
+        }
+
+        @Override
+        public int getNumXTiles() {
+            return 1;
+        }
+
+        @Override
+        public int getNumYTiles() {
+            return (bounds.height + stripHeight - 1) / stripHeight;
+        }
+
+        @Override
+        public int getMinTileX() {
+            return 0;
+        }
+
+        @Override
+        public int getMinTileY() {
+            return 0;
+        }
+
+        @Override
+        public int getTileWidth() {
+            return bounds.width;
+        }
+
+        @Override
+        public int getTileHeight() {
+            return stripHeight;
+        }
+
+        @Override
+        public int getTileGridXOffset() {
+            return 0;
+        }
+
+        @Override
+        public int getTileGridYOffset() {
+            return 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.gutil.gui;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@code BulkColorKernels} implementation using the Vector API, processing as many pixels per instruction as the
+ * preferred vector shape of the platform allows. Requires the {@code jdk.incubator.vector} module, so it is only
+ * loaded reflectively by {@link ColorKernels#bulk()} when the module is present.
+ * @author Ewelina Gren
+ * @version 1.0
+ */
+final class VectorColorKernels implements BulkColorKernels {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Species of the resampling sums, holding the four channels of two pixels. Longer vectors would need more work
+     * adding up the lanes of every target pixel than they save, and shorter ones are handled by the scalar kernel.
+     */
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_256;
+    private static final boolean FLOAT_SPECIES_SUPPORTED = FloatVector.SPECIES_PREFERRED.vectorBitSize() >= 256;
+
+    /**
+     * Scalar kernels processing the pixels remaining after the last full vector.
+     */
+    private final ScalarColorKernels tail = new ScalarColorKernels();
+
+    @Override
+    public void invert(int[] source, int sourceOffset, int[] target, int targetOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, source, sourceOffset + i)
+                    .lanewise(VectorOperators.XOR, 0x00FFFFFF)
+                    .intoArray(target, targetOffset + i);
+        }
+        tail.invert(source, sourceOffset + i, target, targetOffset + i, length - i);
+    }
+
+    @Override
+    public void grayscale(int[] source, int sourceOffset, int[] target, int targetOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            IntVector argb = IntVector.fromArray(SPECIES, source, sourceOffset + i);
+            IntVector sum = argb.lanewise(VectorOperators.LSHR, 16).and(0xFF)
+                    .add(argb.lanewise(VectorOperators.LSHR, 8).and(0xFF))
+                    .add(argb.and(0xFF));
+            //Exact division by 3 for every possible sum (0 - 765), without a vector division.
+            IntVector mean = sum.mul(43691).lanewise(VectorOperators.LSHR, 17);
+            argb.and(0xFF000000)
+                    .or(mean.mul(0x010101))
+                    .intoArray(target, targetOffset + i);
+        }
+        tail.grayscale(source, sourceOffset + i, target, targetOffset + i, length - i);
+    }
+
+    @Override
+    public void replace(int[] source, int sourceOffset, int[] target, int targetOffset, int length,
+                        int originalRGB, int newRGB, int threshold) {
+        int red = (originalRGB >> 16) & 0xFF;
+        int green = (originalRGB >> 8) & 0xFF;
+        int blue = originalRGB & 0xFF;
+
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            IntVector argb = IntVector.fromArray(SPECIES, source, sourceOffset + i);
+            VectorMask<Integer> match = withinThreshold(argb.lanewise(VectorOperators.LSHR, 16).and(0xFF), red, threshold)
+                    .and(withinThreshold(argb.lanewise(VectorOperators.LSHR, 8).and(0xFF), green, threshold))
+                    .and(withinThreshold(argb.and(0xFF), blue, threshold));
+            argb.blend(argb.and(0xFF000000).or(newRGB), match)
+                    .intoArray(target, targetOffset + i);
+        }
+        tail.replace(source, sourceOffset + i, target, targetOffset + i, length - i, originalRGB, newRGB, threshold);
+    }
+
+    @Override
+    public void resample(float[] source, float[] target, int targetOffset, int length,
+                         int[] start, int[] count, float[] weights, int stride) {
+        if (!FLOAT_SPECIES_SUPPORTED) {
+            tail.resample(source, target, targetOffset, length, start, count, weights, stride);
+            return;
+        }
+
+        for (int x = 0; x < length; x++) {
+            int sourceIndex = start[x] * 4;
+            int weightIndex = x * stride;
+            int channels = count[x] * 4;
+
+            //Every vector holds the channels of two consecutive source pixels, a zero weight past the last
+            //contributing pixel cancels out the second one.
+            FloatVector sum = FloatVector.zero(FLOAT_SPECIES);
+            for (int i = 0; i < channels; i += FLOAT_SPECIES.length()) {
+                sum = FloatVector.fromArray(FLOAT_SPECIES, source, sourceIndex + i)
+                        .fma(FloatVector.fromArray(FLOAT_SPECIES, weights, weightIndex + i), sum);
+            }
+            ((FloatVector) sum.reinterpretShape(FloatVector.SPECIES_128, 0))
+                    .add((FloatVector) sum.reinterpretShape(FloatVector.SPECIES_128, 1))
+                    .intoArray(target, targetOffset + x * 4);
+        }
+    }
+
+    private static VectorMask<Integer> withinThreshold(IntVector channel, int value, int threshold) {
+        return channel.sub(value).lanewise(VectorOperators.ABS).compare(VectorOperators.LE, threshold);
+    }
+
+}
@@ -1,6 +1,9 @@
 package com.gutil.gui.component.button;
 
-import com.gutil.gui.ImageUtil;
+import com.gutil.gui.Orientation;
+import com.gutil.gui.OrientedImage;
+import com.gutil.gui.RecolorOperation;
+import com.gutil.gui.ResizeCache;
 import com.gutil.gui.ResizeQuality;
 import com.gutil.gui.adapters.CustomHighlight;
 
@@ -21,6 +24,7 @@ import java.awt.Image;
  */
 public class IconButton extends HighlightedButton implements CustomHighlight {
 
+    private Image originalIcon;
     private Image icon;
     private Image defaultIcon;
     private Image highlightIcon;
@@ -32,7 +36,10 @@ public class IconButton extends HighlightedButton implements CustomHighlight {
 
     private Color defaultColor;
     private Color highlightColor;
+    private RecolorOperation defaultRecolor;
+    private RecolorOperation highlightRecolor;
     private boolean highlight;
+    private Orientation orientation = Orientation.NORMAL;
 
     /**
      * Creates an instance of the button with a specific icon and target dimensions. Assigns default colors.
@@ -41,12 +48,14 @@ public class IconButton extends HighlightedButton implements CustomHighlight {
      * @param height target height of the button
      */
     public IconButton(Image icon, int width, int height) {
-        this.icon = icon;
+        this.originalIcon = icon;
         this.width = width;
         this.height = height;
 
         defaultColor = new Color(0, 0, 255);
         highlightColor = new Color(255, 255, 255);
+        defaultRecolor = recolorTo(defaultColor);
+        highlightRecolor = recolorTo(highlightColor);
 
         setOpaque(false);
 
@@ -55,20 +64,33 @@ public class IconButton extends HighlightedButton implements CustomHighlight {
     }
 
     /**
-     * Adjusts the size of the original icon to fit the target width and height.
+     * Adjusts the size of the original icon to fit the target width and height once oriented.
+     * Resized icons are shared through the default {@code ResizeCache}.
      */
     private void resizeIcon() {
-        if (icon != null) {
-            icon = ImageUtil.resize(icon, width, height, ResizeQuality.HIGH);
+        if (originalIcon == null) {
+            icon = null;
+        } else if (orientation.swapsDimensions()) {
+            icon = ResizeCache.getDefault().resize(originalIcon, height, width, ResizeQuality.HIGH);
+        } else {
+            icon = ResizeCache.getDefault().resize(originalIcon, width, height, ResizeQuality.HIGH);
         }
     }
 
+    /**
+     * Compiles the replacement of all blue (r:0, g:0, b:255) with the specified color, reused for every icon
+     * until the color changes.
+     */
+    private static RecolorOperation recolorTo(Color color) {
+        return RecolorOperation.of(new Color(0, 0, 255), color, 10);
+    }
+
     /**
      * Creates the button's default non-highlighted icon by replacing all blue (r:0, g:0, b:255) with the default color.
      */
     private void colorDefaultIcon() {
         if (icon != null) {
-            defaultIcon = ImageUtil.replaceColor(icon, new Color(0, 0, 255), defaultColor, 10);
+            defaultIcon = defaultRecolor.apply(icon);
         }
     }
 
@@ -77,7 +99,7 @@ public class IconButton extends HighlightedButton implements CustomHighlight {
      */
     private void colorHighlightIcon() {
         if (icon != null) {
-            highlightIcon = ImageUtil.replaceColor(icon, new Color(0, 0, 255), highlightColor, 10);
+            highlightIcon = highlightRecolor.apply(icon);
         }
     }
 
@@ -86,7 +108,7 @@ public class IconButton extends HighlightedButton implements CustomHighlight {
      * @param icon an {@code Image} to be set as the button's icon
      */
     public void setIcon(Image icon) {
-        this.icon = icon;
+        this.originalIcon = icon;
         resizeIcon();
         colorDefaultIcon();
         colorHighlightIcon();
@@ -102,6 +124,7 @@ public class IconButton extends HighlightedButton implements CustomHighlight {
         }
 
         defaultColor = color;
+        defaultRecolor = recolorTo(color);
         if (icon != null) {
             colorDefaultIcon();
             repaint();
@@ -126,6 +149,7 @@ public class IconButton extends HighlightedButton implements CustomHighlight {
         }
 
         highlightColor = color;
+        highlightRecolor = recolorTo(color);
         if (icon != null) {
             colorHighlightIcon();
             repaint();
@@ -133,8 +157,38 @@ public class IconButton extends HighlightedButton implements CustomHighlight {
     }
 
     /**
-     * Returns the resized version of the original icon.
-     * @return button's original icon
+     * Sets the orientation the icon is displayed in. The icon is flipped or rotated while painting, so only a change
+     * between a horizontal and a vertical orientation resizes and recolors the icon again.
+     * @param orientation an {@code Orientation} of the icon
+     */
+    public void setOrientation(Orientation orientation) {
+        if (orientation == null || this.orientation == orientation) {
+            return;
+        }
+
+        boolean resize = this.orientation.swapsDimensions() != orientation.swapsDimensions();
+        this.orientation = orientation;
+        if (resize && icon != null) {
+            resizeIcon();
+            colorDefaultIcon();
+            colorHighlightIcon();
+        }
+        repaint();
+    }
+
+    /**
+     * Returns the orientation the icon is displayed in.
+     * @return the icon's {@code Orientation}
+     */
+    public Orientation getOrientation() {
+        return orientation;
+    }
+
+    /**
+     * Returns the resized version of the original icon, before applying the orientation. The image is cached and
+     * shared with every other button resized from the same icon to the same size, so it must not be modified;
+     * draw on or recolor a copy instead.
+     * @return button's original icon, shared and not to be modified
      */
     public Image getIcon() {
         return icon;
@@ -182,7 +236,9 @@ public class IconButton extends HighlightedButton implements CustomHighlight {
 
         Graphics2D g2 = (Graphics2D) g;
         Image imageToDraw = highlight ? highlightIcon : defaultIcon;
-        g2.drawImage(imageToDraw, x, y, null);
+        if (imageToDraw != null) {
+            OrientedImage.of(imageToDraw, orientation).draw(g2, x, y);
+        }
 
         drawText(g2);
     }
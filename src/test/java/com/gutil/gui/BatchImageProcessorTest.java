@@ -0,0 +1,151 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+public class BatchImageProcessorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void processTest() throws IOException {
+        Path inputDirectory = Files.createDirectory(directory.resolve("input"));
+        Path outputDirectory = directory.resolve("output");
+        for (int i = 0; i < 12; i++) {
+            BufferedImage image = new BufferedImage(40 + i, 30, BufferedImage.TYPE_INT_RGB);
+            image.setRGB(0, 0, Color.BLUE.getRGB());
+            ImageIO.write(image, "png", inputDirectory.resolve("image" + i + ".png").toFile());
+        }
+        Files.writeString(inputDirectory.resolve("notes.txt"), "Not an image");
+
+        BatchImageProcessor.Report report = new BatchImageProcessor(image -> ImagePipeline.of(image)
+                .replaceColor(Color.BLUE, Color.RED)
+                .rotateBy90Degrees()
+                .toImage())
+                .setTransformThreads(2)
+                .setMaxImagesInFlight(3)
+                .setOutputFormat("bmp")
+                .process(inputDirectory, outputDirectory);
+
+        Assertions.assertEquals(12, report.getProcessedCount());
+        Assertions.assertEquals(1, report.getFailedCount());
+        Assertions.assertEquals(13, report.getDecodeStatistics().getCount());
+        Assertions.assertEquals(12, report.getTransformStatistics().getCount());
+        Assertions.assertEquals(12, report.getEncodeStatistics().getCount());
+
+        BufferedImage result = ImageIO.read(outputDirectory.resolve("image5.bmp").toFile());
+        Assertions.assertEquals(30, result.getWidth());
+        Assertions.assertEquals(45, result.getHeight());
+        Assertions.assertEquals(Color.RED.getRGB(), result.getRGB(29, 0));
+    }
+
+    @Test
+    public void errorTest() throws IOException {
+        Path inputDirectory = Files.createDirectory(directory.resolve("input"));
+        for (int i = 0; i < 6; i++) {
+            ImageIO.write(new BufferedImage(10 + i, 10, BufferedImage.TYPE_INT_RGB), "png", inputDirectory.resolve("image" + i + ".png").toFile());
+        }
+
+        //An Error thrown while transforming must not lose the permit of its image, which would hang the processing.
+        BatchImageProcessor.Report report = new BatchImageProcessor(image -> {
+            if (image.getWidth(null) % 2 == 0) {
+                throw new StackOverflowError("Expected in this test");
+            }
+            return image;
+        })
+                .setTransformThreads(1)
+                .setEncodeThreads(1)
+                .setMaxImagesInFlight(2)
+                .process(inputDirectory, directory.resolve("output"));
+
+        Assertions.assertEquals(3, report.getProcessedCount());
+        Assertions.assertEquals(3, report.getFailedCount());
+    }
+
+    @Test
+    public void outputNameTest() throws IOException {
+        Path inputDirectory = Files.createDirectory(directory.resolve("input"));
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        ImageIO.write(image, "png", inputDirectory.resolve("a.png").toFile());
+        ImageIO.write(image, "bmp", inputDirectory.resolve("a.bmp").toFile());
+        ImageIO.write(image, "png", inputDirectory.resolve("b.png").toFile());
+
+        //Both a.png and a.bmp map to a.png, and the results are written into the listed directory.
+        BatchImageProcessor.Report report = new BatchImageProcessor(image1 -> image1).process(inputDirectory, inputDirectory);
+
+        Assertions.assertEquals(2, report.getProcessedCount());
+        Assertions.assertEquals(1, report.getFailedCount());
+        Assertions.assertTrue(report.isComplete());
+        try (Stream<Path> files = Files.list(inputDirectory)) {
+            Assertions.assertEquals(3, files.count());
+        }
+    }
+
+    @Test
+    public void interruptTest() throws Exception {
+        Path inputDirectory = Files.createDirectory(directory.resolve("input"));
+        for (int i = 0; i < 8; i++) {
+            ImageIO.write(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), "png", inputDirectory.resolve("image" + i + ".png").toFile());
+        }
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        BatchImageProcessor processor = new BatchImageProcessor(image -> {
+            running.incrementAndGet();
+            try {
+                started.countDown();
+                Thread.sleep(200);
+                return image;
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        }).setTransformThreads(1).setMaxImagesInFlight(3);
+
+        AtomicReference<BatchImageProcessor.Report> report = new AtomicReference<>();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread thread = new Thread(() -> {
+            try {
+                report.set(processor.process(inputDirectory, directory.resolve("output")));
+                interrupted.set(Thread.currentThread().isInterrupted());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        thread.start();
+        started.await();
+        thread.interrupt();
+        thread.join();
+
+        //Nothing is still running once the processing returns, and every started image is accounted for.
+        Assertions.assertEquals(0, running.get());
+        Assertions.assertTrue(interrupted.get());
+        Assertions.assertFalse(report.get().isComplete());
+        Assertions.assertTrue(report.get().getFailedCount() > 0);
+        Assertions.assertTrue(report.get().getProcessedCount() + report.get().getFailedCount() < 8);
+    }
+
+    @Test
+    public void illegalArgumentsTest() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BatchImageProcessor(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BatchImageProcessor(image -> image).setOutputFormat("unknown"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BatchImageProcessor(image -> image).setTransformThreads(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BatchImageProcessor(image -> image).setEncodeThreads(0));
+    }
+
+}
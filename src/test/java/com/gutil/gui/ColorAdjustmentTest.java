@@ -0,0 +1,97 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+public class ColorAdjustmentTest {
+
+    @Test
+    public void tableTest() {
+        Assertions.assertEquals(0x80123456, ColorAdjustment.identity().applyAsInt(0x80123456));
+        Assertions.assertEquals(0x80FFFF14, ColorAdjustment.brightness(20).applyAsInt(0x80F0F000));
+        Assertions.assertEquals(0xFF000000, ColorAdjustment.brightness(-255).applyAsInt(0xFFFFFFFF));
+        Assertions.assertEquals(0xFF00FF81, ColorAdjustment.contrast(3).applyAsInt(0xFF40C080));
+        Assertions.assertEquals(0xFF808080, ColorAdjustment.contrast(0).applyAsInt(0xFF00FF40));
+        Assertions.assertEquals(0xFF0080FF, ColorAdjustment.gamma(2).applyAsInt(0xFF0040FF));
+        Assertions.assertEquals(0xFF146EC8, ColorAdjustment.levels(50, 150, 20, 200).applyAsInt(0xFF0A64C8));
+        Assertions.assertEquals(0x40FFFFFF, ColorAdjustment.opacity(0.25).applyAsInt(0xFFFFFFFF));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ColorAdjustment.brightness(256));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ColorAdjustment.contrast(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ColorAdjustment.gamma(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ColorAdjustment.levels(100, 100, 0, 255));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ColorAdjustment.levels(0, 255, 0, 256));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ColorAdjustment.opacity(1.5));
+    }
+
+    @Test
+    public void compositionTest() {
+        ColorAdjustment brightness = ColorAdjustment.brightness(-30);
+        ColorAdjustment contrast = ColorAdjustment.contrast(1.4);
+        ColorAdjustment gamma = ColorAdjustment.gamma(0.8);
+        ColorAdjustment opacity = ColorAdjustment.opacity(0.5);
+        ColorAdjustment combined = brightness.then(contrast).then(gamma).then(opacity);
+        Random random = new Random(24);
+
+        for (int i = 0; i < 1000; i++) {
+            int argb = random.nextInt();
+            int expected = opacity.applyAsInt(gamma.applyAsInt(contrast.applyAsInt(brightness.applyAsInt(argb))));
+            Assertions.assertEquals(expected, combined.applyAsInt(argb));
+        }
+    }
+
+    @Test
+    public void imageTypesTest() {
+        ColorAdjustment adjustment = ColorAdjustment.levels(16, 235, 0, 255).then(ColorAdjustment.gamma(1.2));
+        Random random = new Random(24);
+
+        for (int imageType : new int[]{BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_INDEXED}) {
+            BufferedImage image = new BufferedImage(23, 11, imageType);
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    image.setRGB(x, y, random.nextInt() | 0xFF000000);
+                }
+            }
+
+            BufferedImage actual = (BufferedImage) ImageUtil.adjust(image, adjustment);
+            Assertions.assertEquals(imageType, actual.getType());
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    Assertions.assertEquals(adjustment.applyAsInt(image.getRGB(x, y)), actual.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void opaqueSourceTest() {
+        //Pixels of an image without alpha written into an image with alpha stay opaque.
+        BufferedImage image = new BufferedImage(5, 3, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(2, 1, Color.ORANGE.getRGB());
+        BufferedImage destination = new BufferedImage(5, 3, BufferedImage.TYPE_INT_ARGB);
+
+        ImageUtil.adjust(image, ColorAdjustment.identity(), destination);
+        Assertions.assertEquals(Color.ORANGE.getRGB(), destination.getRGB(2, 1));
+        Assertions.assertEquals(0xFF000000, destination.getRGB(0, 0));
+
+        ImageUtil.invertColors(image, destination);
+        Assertions.assertEquals(0xFFFFFFFF, destination.getRGB(0, 0));
+
+        //Kernels depending on alpha see the pixels as opaque, as they do for sources with byte rasters.
+        BufferedImage byteImage = new BufferedImage(5, 3, BufferedImage.TYPE_3BYTE_BGR);
+        ImageUtil.adjust(image, ColorAdjustment.opacity(0.5), destination);
+        Assertions.assertEquals(0x80, destination.getRGB(2, 1) >>> 24);
+        int byteAlpha = ((BufferedImage) ImageUtil.adjust(byteImage, ColorAdjustment.opacity(0.5), new BufferedImage(5, 3, BufferedImage.TYPE_INT_ARGB))).getRGB(2, 1) >>> 24;
+        Assertions.assertEquals(byteAlpha, destination.getRGB(2, 1) >>> 24);
+
+        //Alpha returned by the kernel is not stored in a raster without alpha.
+        BufferedImage opaqueDestination = new BufferedImage(5, 3, BufferedImage.TYPE_INT_RGB);
+        ImageUtil.adjust(image, ColorAdjustment.opacity(0.5), opaqueDestination);
+        Assertions.assertEquals(0, ((int[]) opaqueDestination.getRaster().getDataElements(2, 1, null))[0] >>> 24);
+    }
+
+}
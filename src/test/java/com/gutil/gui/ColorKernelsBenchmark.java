@@ -0,0 +1,62 @@
+package com.gutil.gui;
+
+import java.util.Random;
+
+/**
+ * Compares the throughput of the scalar and Vector API bulk color kernels on a 4K image sized buffer.
+ * Run with {@code gradle benchmark}.
+ */
+public class ColorKernelsBenchmark {
+
+    private static final int WIDTH = 3840;
+    private static final int HEIGHT = 2160;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    private interface Kernel {
+        void run(BulkColorKernels kernels, int[] source, int[] target);
+    }
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        int[] source = new int[WIDTH * HEIGHT];
+        int[] target = new int[WIDTH * HEIGHT];
+        Random random = new Random(1);
+        for (int i = 0; i < source.length; i++) {
+            source[i] = random.nextInt();
+        }
+
+        BulkColorKernels scalar = new ScalarColorKernels();
+        BulkColorKernels vector = ColorKernels.bulk();
+        if (vector instanceof ScalarColorKernels) {
+            System.out.println("The jdk.incubator.vector module is not available, run with --add-modules jdk.incubator.vector.");
+            return;
+        }
+
+        compare("invert", scalar, vector, source, target,
+                (kernels, from, to) -> kernels.invert(from, 0, to, 0, from.length));
+        compare("grayscale", scalar, vector, source, target,
+                (kernels, from, to) -> kernels.grayscale(from, 0, to, 0, from.length));
+        compare("replace", scalar, vector, source, target,
+                (kernels, from, to) -> kernels.replace(from, 0, to, 0, from.length, 0x808080, 0xFF0000, 40));
+    }
+
+    private static void compare(String name, BulkColorKernels scalar, BulkColorKernels vector, int[] source, int[] target, Kernel kernel) {
+        double scalarTime = measure(scalar, source, target, kernel);
+        double vectorTime = measure(vector, source, target, kernel);
+        System.out.printf("%-10s scalar: %7.3f ms, vector: %7.3f ms, speedup: %.2fx%n",
+                name, scalarTime, vectorTime, scalarTime / vectorTime);
+    }
+
+    private static double measure(BulkColorKernels kernels, int[] source, int[] target, Kernel kernel) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            kernel.run(kernels, source, target);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            kernel.run(kernels, source, target);
+        }
+        return (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+    }
+
+}
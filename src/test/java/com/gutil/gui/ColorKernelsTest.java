@@ -0,0 +1,87 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.Random;
+
+public class ColorKernelsTest {
+
+    private static int[] pixels;
+
+    @BeforeAll
+    public static void createPixels() {
+        //An odd length, so that the vector kernels also process a scalar tail.
+        pixels = new int[1027];
+        Random random = new Random(3);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+    }
+
+    @Test
+    public void scalarKernelsTest() {
+        for (int argb : pixels) {
+            Color color = new Color(argb, true);
+            Assertions.assertEquals(ColorUtil.inverted(color).getRGB(), ColorKernels.invert(argb));
+            Assertions.assertEquals(ColorUtil.grayscale(color).getRGB(), ColorKernels.grayscale(argb));
+
+            boolean withinRange = ColorUtil.isColorWithinRange(color, Color.GRAY, 70);
+            int expected = withinRange ? ColorUtil.semiTransparent(Color.ORANGE, color.getAlpha()).getRGB() : argb;
+            Assertions.assertEquals(expected, ColorKernels.replace(Color.GRAY, Color.ORANGE, 70).applyAsInt(argb));
+        }
+    }
+
+    @Test
+    public void bulkKernelsTest() {
+        BulkColorKernels scalar = new ScalarColorKernels();
+        BulkColorKernels bulk = ColorKernels.bulk();
+        int[] expected = new int[pixels.length];
+        int[] actual = new int[pixels.length];
+
+        scalar.invert(pixels, 0, expected, 0, pixels.length);
+        bulk.invert(pixels, 0, actual, 0, pixels.length);
+        Assertions.assertArrayEquals(expected, actual);
+
+        scalar.grayscale(pixels, 3, expected, 1, pixels.length - 3);
+        bulk.grayscale(pixels, 3, actual, 1, pixels.length - 3);
+        Assertions.assertArrayEquals(expected, actual);
+
+        scalar.replace(pixels, 0, expected, 0, pixels.length, 0x808080, 0xFFC800, 70);
+        bulk.replace(pixels, 0, actual, 0, pixels.length, 0x808080, 0xFFC800, 70);
+        Assertions.assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void bulkResampleTest() {
+        //Target pixels of 1 to 5 contributing source pixels, so that the vector kernel also reads padding.
+        float[] channels = new float[pixels.length * 4 + Resampler.PADDING];
+        for (int i = 0; i < pixels.length * 4; i++) {
+            channels[i] = (pixels[i / 4] >>> (24 - i % 4 * 8)) & 0xFF;
+        }
+        int length = 200;
+        int stride = 5 * 4 + Resampler.PADDING;
+        int[] start = new int[length];
+        int[] count = new int[length];
+        float[] weights = new float[length * stride];
+        for (int x = 0; x < length; x++) {
+            start[x] = Math.min(x * 5, pixels.length - 5);
+            count[x] = x % 5 + 1;
+            for (int i = 0; i < count[x] * 4; i++) {
+                weights[x * stride + i] = (i / 4 + 1f) / count[x];
+            }
+        }
+
+        float[] expected = new float[length * 4 + 2];
+        float[] actual = new float[length * 4 + 2];
+        new ScalarColorKernels().resample(channels, expected, 2, length, start, count, weights, stride);
+        ColorKernels.bulk().resample(channels, actual, 2, length, start, count, weights, stride);
+        Assertions.assertArrayEquals(expected, actual, 0.01f);
+        //The second target pixel weights its two source pixels by 1/2 and 1.
+        float green = channels[start[1] * 4 + 2] / 2 + channels[start[1] * 4 + 6];
+        Assertions.assertEquals(green, expected[2 + 4 + 2], 0.01f);
+    }
+
+}
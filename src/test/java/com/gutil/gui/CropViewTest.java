@@ -0,0 +1,55 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+public class CropViewTest {
+
+    @Test
+    public void sharedPixelsTest() {
+        BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(12, 7, Color.RED.getRGB());
+
+        CropView view = ImageUtil.cropView(image, 5, 8, 3, 10);
+
+        Assertions.assertEquals(new Rectangle(10, 5, 22, 22), view.getBounds());
+        Assertions.assertFalse(view.isMaterialized());
+        Assertions.assertSame(image.getRaster().getDataBuffer(), ((BufferedImage) view.getImage()).getRaster().getDataBuffer());
+        Assertions.assertEquals(Color.RED.getRGB(), view.getRGB(2, 2));
+
+        //Changes to the original image are visible until the view is written to.
+        image.setRGB(13, 7, Color.BLUE.getRGB());
+        Assertions.assertEquals(Color.BLUE.getRGB(), view.getRGB(3, 2));
+
+        //Other operations read the view like any other image.
+        Assertions.assertEquals(Color.BLUE.getRGB(), ((BufferedImage) ImageUtil.flipHorizontally(view.getImage())).getRGB(18, 2));
+    }
+
+    @Test
+    public void copyOnWriteTest() {
+        BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_3BYTE_BGR);
+        image.setRGB(12, 7, Color.RED.getRGB());
+        CropView view = ImageUtil.cropViewByPercentage(image, 10, 20, 10, 20);
+
+        Assertions.assertEquals(new Rectangle(8, 3, 24, 24), view.getBounds());
+        view.setRGB(1, 2, Color.GREEN.getRGB());
+
+        Assertions.assertTrue(view.isMaterialized());
+        Assertions.assertNotSame(image.getRaster().getDataBuffer(), ((BufferedImage) view.getImage()).getRaster().getDataBuffer());
+        Assertions.assertEquals(BufferedImage.TYPE_3BYTE_BGR, view.materialize().getType());
+        Assertions.assertEquals(Color.GREEN.getRGB(), view.getRGB(1, 2));
+        Assertions.assertEquals(Color.RED.getRGB(), view.getRGB(4, 4));
+        Assertions.assertEquals(Color.BLACK.getRGB(), image.getRGB(9, 5));
+
+        image.setRGB(12, 7, Color.BLUE.getRGB());
+        Assertions.assertEquals(Color.RED.getRGB(), view.getRGB(4, 4));
+        Assertions.assertSame(view.materialize(), view.materialize());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ImageUtil.cropView(image, 20, 0, 11, 0));
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ImageCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void hitTest() throws IOException {
+        File file = write("icon.png", Color.RED);
+        ImageCache cache = new ImageCache(1 << 20);
+
+        Image first = cache.read(file);
+        Image second = cache.read(new File(file.getParentFile(), "./icon.png"));
+
+        Assertions.assertNotNull(first);
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+        Assertions.assertNull(cache.read(new File(directory.toFile(), "missing.png")));
+    }
+
+    @Test
+    public void modifiedFileTest() throws IOException {
+        File file = write("icon.png", Color.RED);
+        ImageCache cache = new ImageCache(1 << 20);
+
+        Image first = cache.read(file);
+        write("icon.png", Color.BLUE);
+        Assertions.assertTrue(file.setLastModified(file.lastModified() + 5000));
+        Image second = cache.read(file);
+
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(Color.BLUE.getRGB(), ((BufferedImage) second).getRGB(3, 3));
+        Assertions.assertEquals(2, cache.getMissCount());
+        Assertions.assertEquals(16 * 16 * 4, cache.getSize());
+    }
+
+    @Test
+    public void concurrentReadTest() throws Exception {
+        File file = write("icon.png", Color.GREEN);
+        ImageCache cache = new ImageCache(1 << 20);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Image>> reads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                reads.add(executor.submit(() -> cache.read(file)));
+            }
+            for (Future<Image> read : reads) {
+                Assertions.assertSame(reads.get(0).get(), read.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertEquals(1, cache.getMissCount());
+        Assertions.assertEquals(7, cache.getHitCount());
+    }
+
+    @Test
+    public void evictionTest() throws IOException {
+        ImageCache cache = new ImageCache(16 * 16 * 4);
+
+        cache.read(write("first.png", Color.RED));
+        cache.read(write("second.png", Color.BLUE));
+
+        Assertions.assertEquals(1, cache.getEvictionCount());
+        Assertions.assertEquals(16 * 16 * 4, cache.getSize());
+    }
+
+    private File write(String name, Color color) throws IOException {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                image.setRGB(x, y, color.getRGB());
+            }
+        }
+
+        File file = directory.resolve(name).toFile();
+        ImageIO.write(image, "png", file);
+        return file;
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.util.Random;
+
+public class ImagePipelineTest {
+
+    private static BufferedImage image;
+
+    @BeforeAll
+    public static void createImage() {
+        image = new BufferedImage(120, 80, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(11);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+    }
+
+    @Test
+    public void fusedOperationsTest() {
+        Image expected = ImageUtil.cropByPercentage(image, 10, 5, 20, 15);
+        expected = ImageUtil.flipHorizontally(expected);
+        expected = ImageUtil.rotateBy90Degrees(expected);
+        expected = ImageUtil.replaceColor(expected, Color.GRAY, Color.RED, 50);
+        expected = ImageUtil.crop(expected, 3, 1, 4, 2);
+        expected = ImageUtil.rotateBy270Degrees(expected);
+        expected = ImageUtil.flipVertically(expected);
+        expected = ImageUtil.invertColors(expected);
+
+        Image actual = ImagePipeline.of(image)
+                .cropByPercentage(10, 5, 20, 15)
+                .flipHorizontally()
+                .rotateBy90Degrees()
+                .replaceColor(Color.GRAY, Color.RED, 50)
+                .crop(3, 1, 4, 2)
+                .rotateBy270Degrees()
+                .flipVertically()
+                .invertColors()
+                .toImage();
+
+        assertSamePixels((BufferedImage) expected, (BufferedImage) actual);
+    }
+
+    @Test
+    public void resizeStageTest() {
+        Image expected = ImageUtil.rotateBy180Degrees(image);
+        expected = ImageUtil.resize(expected, 60, 0, ResizeQuality.LOW);
+        expected = ImageUtil.convertToGrayscale(expected);
+        expected = ImageUtil.crop(expected, 0, 10, 0, 10);
+
+        Image actual = ImagePipeline.of(image)
+                .rotateBy180Degrees()
+                .resize(60, 0, ResizeQuality.LOW)
+                .convertToGrayscale()
+                .crop(0, 10, 0, 10)
+                .toImage();
+
+        assertSamePixels((BufferedImage) expected, (BufferedImage) actual);
+    }
+
+    @Test
+    public void indexedImageTest() {
+        byte[] reds = {(byte) 255, 0};
+        byte[] greens = {0, 0};
+        byte[] blues = {0, (byte) 255};
+        BufferedImage indexedImage = new BufferedImage(6, 4, BufferedImage.TYPE_BYTE_BINARY, new IndexColorModel(1, 2, reds, greens, blues));
+        indexedImage.setRGB(1, 0, Color.BLUE.getRGB());
+        Color green = new Color(0x00C800);
+
+        //The new color is not in the palette of the source, so it must not be quantized into it.
+        BufferedImage recoloredImage = (BufferedImage) ImagePipeline.of(indexedImage).replaceColor(Color.RED, green).toImage();
+        Assertions.assertEquals(((BufferedImage) ImageUtil.replaceColor(indexedImage, Color.RED, green)).getRGB(0, 0), recoloredImage.getRGB(0, 0));
+        Assertions.assertEquals(green.getRGB(), recoloredImage.getRGB(0, 0));
+        Assertions.assertEquals(Color.BLUE.getRGB(), recoloredImage.getRGB(1, 0));
+
+        BufferedImage rotatedImage = (BufferedImage) ImagePipeline.of(indexedImage).replaceColor(Color.RED, green).rotateBy90Degrees()
+                .adjust(ColorAdjustment.brightness(0)).toImage();
+        Assertions.assertEquals(4, rotatedImage.getWidth());
+        Assertions.assertEquals(green.getRGB(), rotatedImage.getRGB(3, 0));
+        Assertions.assertEquals(Color.BLUE.getRGB(), rotatedImage.getRGB(3, 1));
+        Assertions.assertEquals(Color.RED.getRGB(), indexedImage.getRGB(0, 0));
+    }
+
+    @Test
+    public void emptyPipelineTest() {
+        Assertions.assertSame(image, ImagePipeline.of(image).toImage());
+        Assertions.assertSame(image, ImagePipeline.of(image).resize(120, 80, ResizeQuality.HIGH).toImage());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ImagePipeline.of(image).crop(50, 0, 50, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ImagePipeline.of(image).rotateBy90Degrees().crop(0, 50, 0, 50));
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        Assertions.assertEquals(expected.getWidth(), actual.getWidth());
+        Assertions.assertEquals(expected.getHeight(), actual.getHeight());
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+        Assertions.assertArrayEquals(expected.getRGB(0, 0, width, height, null, 0, width), actual.getRGB(0, 0, width, height, null, 0, width));
+    }
+
+}
@@ -3,16 +3,32 @@ package com.gutil.gui;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import javax.imageio.ImageIO;
 import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
 
 public class ImageUtilTest {
 
     private static Image image;
 
+    @TempDir
+    Path directory;
+
     private static int xyRGB1;
     private static int xyRGB2;
 
@@ -29,6 +45,79 @@ public class ImageUtilTest {
         xyRGB2 = ((BufferedImage) image).getRGB(200, 175);
     }
 
+    @Test
+    public void partialReadTest() {
+        File file = new File(ImageUtilTest.class.getResource("/Moria.png").getFile());
+        BufferedImage region = (BufferedImage) ImageUtil.readImage(file, new Rectangle(150, 170, 100, 3000));
+        Image thumbnail = ImageUtil.readImage(file, 64, 0);
+
+        Assertions.assertNotNull(region);
+        Assertions.assertEquals(100, region.getWidth());
+        Assertions.assertEquals(3000, region.getHeight());
+        Assertions.assertEquals(xyRGB2, region.getRGB(50, 5));
+        Assertions.assertNull(ImageUtil.readImage(file, new Rectangle(5000, 0, 10, 10)));
+        Assertions.assertNull(ImageUtil.readImage(new File("Moria.png"), new Rectangle(0, 0, 10, 10)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ImageUtil.readImage(file, null));
+
+        Assertions.assertNotNull(thumbnail);
+        Assertions.assertEquals(64, thumbnail.getWidth(null));
+        Assertions.assertEquals(85, thumbnail.getHeight(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ImageUtil.readImage(file, 0, 0));
+    }
+
+    @Test
+    public void writeTest() throws IOException {
+        BufferedImage smallImage = (BufferedImage) ImageUtil.crop(image, 0, 3000, 4000, 0);
+        Path file = directory.resolve("image.png");
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(4 << 20).position(10);
+        ByteBuffer smallBuffer = ByteBuffer.allocate(100);
+
+        Assertions.assertTrue(ImageUtil.writeImage(smallImage, "png", file));
+        Assertions.assertTrue(ImageUtil.writeImage(smallImage, "png", stream, new ImageWriteOptions().setDeflateLevel(9)));
+        Assertions.assertTrue(ImageUtil.writeImage(smallImage, "png", buffer, new ImageWriteOptions().setDeflateLevel(0)));
+        Assertions.assertFalse(ImageUtil.writeImage(smallImage, "png", smallBuffer));
+        Assertions.assertFalse(ImageUtil.writeImage(smallImage, "unknown", stream));
+
+        BufferedImage fileImage = ImageIO.read(file.toFile());
+        BufferedImage streamImage = ImageIO.read(new ByteArrayInputStream(stream.toByteArray()));
+        BufferedImage bufferImage = ImageIO.read(new ByteArrayInputStream(buffer.array(), 10, buffer.position() - 10));
+
+        Assertions.assertEquals(smallImage.getRGB(200, 175), fileImage.getRGB(200, 175));
+        Assertions.assertEquals(smallImage.getRGB(200, 175), streamImage.getRGB(200, 175));
+        Assertions.assertEquals(smallImage.getRGB(200, 175), bufferImage.getRGB(200, 175));
+        //Level 0 stores the pixels uncompressed.
+        Assertions.assertTrue(buffer.position() - 10 > stream.size());
+        Assertions.assertEquals(0, smallBuffer.position());
+    }
+
+    @Test
+    public void failedWriteTest() throws IOException {
+        Path file = directory.resolve("image.jpg");
+        Assertions.assertTrue(ImageUtil.writeImage(new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB), "jpg", file));
+        byte[] content = Files.readAllBytes(file);
+
+        //No JPEG writer can encode the alpha channel, so none is selected instead of failing in the middle of writing.
+        Assertions.assertFalse(ImageUtil.writeImage(new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB), "jpg", file));
+        BufferedImage failingImage = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB) {
+            @Override
+            public Raster getData(Rectangle rectangle) {
+                throw new IllegalStateException("Expected in this test");
+            }
+
+            @Override
+            public Raster getTile(int tileX, int tileY) {
+                throw new IllegalStateException("Expected in this test");
+            }
+        };
+        Assertions.assertFalse(ImageUtil.writeImage(failingImage, "png", directory.resolve("image.png")));
+
+        Assertions.assertArrayEquals(content, Files.readAllBytes(file));
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(1, files.count());
+        }
+    }
+
     @Test
     public void deepCopyTest() {
         BufferedImage image1 = ImageUtil.deepCopy((BufferedImage) image);
@@ -107,6 +196,34 @@ public class ImageUtilTest {
         Assertions.assertThrows(IllegalArgumentException.class, () -> ImageUtil.cropByPercentage(image, 5, 60, 5, 60));
     }
 
+    @Test
+    public void destinationTest() {
+        BufferedImage original = (BufferedImage) image;
+        int width = original.getWidth();
+        int height = original.getHeight();
+        BufferedImage destination = new BufferedImage(height, width, original.getType());
+        BufferedImage resizeDestination = new BufferedImage(120, 80, BufferedImage.TYPE_INT_ARGB);
+
+        //Repeated operations keep writing into the same images.
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertSame(destination, ImageUtil.rotateBy90Degrees(image, destination));
+            Assertions.assertEquals(xyRGB1, destination.getRGB(height - 6, 5));
+
+            Assertions.assertSame(resizeDestination, ImageUtil.resize(image, 120, 80, ResizeQuality.HIGH, resizeDestination));
+            Assertions.assertArrayEquals(((BufferedImage) ImageUtil.resize(image, 120, 80, ResizeQuality.HIGH)).getRGB(0, 0, 120, 80, null, 0, 120),
+                    resizeDestination.getRGB(0, 0, 120, 80, null, 0, 120));
+        }
+
+        //Color adjustments may be written over the input.
+        BufferedImage copy = ImageUtil.deepCopy(original);
+        Assertions.assertSame(copy, ImageUtil.invertColors(copy, copy));
+        Assertions.assertEquals(xyRGB1 ^ 0x00ffffff, copy.getRGB(5, 5));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ImageUtil.flipHorizontally(image, destination));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ImageUtil.flipHorizontally(copy, copy));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ImageUtil.resize(image, 120, 80, ResizeQuality.LOW, null));
+    }
+
     @Test
     public void colorAdjustmentsTest() {
         //invert
@@ -131,4 +248,133 @@ public class ImageUtilTest {
         Assertions.assertEquals(Color.RED, new Color(((BufferedImage) image4).getRGB(5, 5)));
     }
 
+    @Test
+    public void compactGrayscaleTest() throws IOException {
+        BufferedImage opaqueImage = (BufferedImage) ImageUtil.convertToGrayscale(image, true);
+        BufferedImage fullImage = (BufferedImage) ImageUtil.convertToGrayscale(image);
+
+        Assertions.assertEquals(1, opaqueImage.getRaster().getNumBands());
+        Assertions.assertEquals(fullImage.getRGB(200, 175), opaqueImage.getRGB(200, 175));
+        Assertions.assertEquals(ColorUtil.grayscale(new Color(xyRGB1)).getRed(), opaqueImage.getRaster().getSample(5, 5, 0));
+        Assertions.assertEquals(ColorUtil.grayscale(new Color(xyRGB2)).getRed(), opaqueImage.getRaster().getSample(200, 175, 0));
+
+        //Drawn and encoded as the same gray levels as the full result.
+        BufferedImage drawnImage = new BufferedImage(opaqueImage.getWidth(), opaqueImage.getHeight(), BufferedImage.TYPE_INT_RGB);
+        drawnImage.createGraphics().drawImage(opaqueImage, 0, 0, null);
+        Assertions.assertEquals(fullImage.getRGB(200, 175), drawnImage.getRGB(200, 175));
+        Assertions.assertTrue(ImageUtil.writeImage(opaqueImage, "png", directory.resolve("gray.png")));
+        drawnImage.createGraphics().drawImage(ImageUtil.readImage(directory.resolve("gray.png").toFile()), 0, 0, null);
+        Assertions.assertEquals(fullImage.getRGB(5, 5), drawnImage.getRGB(5, 5));
+
+        BufferedImage transparentImage = new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB);
+        transparentImage.setRGB(2, 3, new Color(10, 20, 60, 40).getRGB());
+        BufferedImage translucentImage = (BufferedImage) ImageUtil.convertToGrayscale(transparentImage, true);
+
+        Assertions.assertTrue(translucentImage.getColorModel().hasAlpha());
+        Assertions.assertEquals(30, translucentImage.getRaster().getSample(2, 3, 0));
+        Assertions.assertEquals(40, translucentImage.getRaster().getSample(2, 3, 1));
+        Assertions.assertEquals(0, translucentImage.getRaster().getSample(0, 0, 1));
+
+        BufferedImage fullTranslucentImage = (BufferedImage) ImageUtil.convertToGrayscale(transparentImage);
+        Assertions.assertEquals(fullTranslucentImage.getRGB(2, 3), translucentImage.getRGB(2, 3));
+        //Blended over an opaque background, the gray level and alpha of both results are drawn the same.
+        BufferedImage drawnTranslucentImage = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        BufferedImage drawnFullImage = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        for (BufferedImage drawn : new BufferedImage[] {drawnTranslucentImage, drawnFullImage}) {
+            Graphics2D graphics = drawn.createGraphics();
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, 20, 10);
+            graphics.drawImage(drawn == drawnFullImage ? fullTranslucentImage : translucentImage, 0, 0, null);
+            graphics.dispose();
+        }
+        Assertions.assertArrayEquals(drawnFullImage.getRGB(0, 0, 20, 10, null, 0, 20), drawnTranslucentImage.getRGB(0, 0, 20, 10, null, 0, 20));
+        Assertions.assertNotEquals(Color.WHITE.getRGB(), drawnTranslucentImage.getRGB(2, 3));
+        Assertions.assertTrue(ImageUtil.writeImage(translucentImage, "png", directory.resolve("translucent.png")));
+    }
+
+    @Test
+    public void compactGrayscaleProcessingTest() {
+        BufferedImage colorImage = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+        colorImage.setRGB(3, 4, 0x406080);
+        colorImage.setRGB(39, 29, 0xC0FF20);
+        BufferedImage transparentImage = new BufferedImage(40, 30, BufferedImage.TYPE_INT_ARGB);
+        transparentImage.setRGB(3, 4, 0x80406080);
+
+        //Later processing reads the gray levels of a compact result as the same colors as those of a full result.
+        for (BufferedImage source : new BufferedImage[] {colorImage, transparentImage}) {
+            Image compactImage = ImageUtil.convertToGrayscale(source, true);
+            Image fullImage = ImageUtil.convertToGrayscale(source);
+            assertSamePixels(ImageUtil.invertColors(fullImage), ImageUtil.invertColors(compactImage));
+            assertSamePixels(ImageUtil.rotateBy90Degrees(fullImage), ImageUtil.rotateBy90Degrees(compactImage));
+            assertSamePixels(ImageUtil.crop(fullImage, 2, 3, 4, 5), ImageUtil.crop(compactImage, 2, 3, 4, 5));
+            //Results of the same layout stay compact, and are drawn as the same gray levels.
+            BufferedImage rotatedImage = (BufferedImage) ImageUtil.rotateBy90Degrees(compactImage);
+            Assertions.assertSame(SrgbGrayColorSpace.INSTANCE, rotatedImage.getColorModel().getColorSpace());
+            BufferedImage drawnImage = new BufferedImage(30, 40, BufferedImage.TYPE_INT_ARGB);
+            drawnImage.createGraphics().drawImage(rotatedImage, 0, 0, null);
+            assertSamePixels(ImageUtil.rotateBy90Degrees(fullImage), drawnImage);
+        }
+        Assertions.assertEquals(0xFF9F9F9F, ((BufferedImage) ImageUtil.invertColors(ImageUtil.convertToGrayscale(colorImage, true))).getRGB(3, 4));
+    }
+
+    private static void assertSamePixels(Image expectedImage, Image actualImage) {
+        BufferedImage expected = (BufferedImage) expectedImage;
+        BufferedImage actual = (BufferedImage) actualImage;
+        Assertions.assertArrayEquals(expected.getRGB(0, 0, expected.getWidth(), expected.getHeight(), null, 0, expected.getWidth()),
+                actual.getRGB(0, 0, actual.getWidth(), actual.getHeight(), null, 0, actual.getWidth()));
+    }
+
+    @Test
+    public void indexedColorTest() {
+        BufferedImage indexedImage = new BufferedImage(30, 20, BufferedImage.TYPE_BYTE_INDEXED);
+        indexedImage.setRGB(4, 5, Color.BLUE.getRGB());
+        indexedImage.setRGB(6, 7, Color.RED.getRGB());
+
+        BufferedImage recoloredImage = (BufferedImage) ImageUtil.replaceColor(indexedImage, Color.BLUE, new Color(10, 200, 30), 10);
+
+        Assertions.assertSame(indexedImage.getRaster(), recoloredImage.getRaster());
+        Assertions.assertEquals(new Color(10, 200, 30).getRGB(), recoloredImage.getRGB(4, 5));
+        Assertions.assertEquals(Color.RED.getRGB(), recoloredImage.getRGB(6, 7));
+        Assertions.assertEquals(Color.BLUE.getRGB(), indexedImage.getRGB(4, 5));
+    }
+
+    @Test
+    public void transparencyTest() {
+        BufferedImage transparentImage = new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB);
+        transparentImage.setRGB(2, 3, new Color(10, 20, 30, 40).getRGB());
+        BufferedImage subimage = transparentImage.getSubimage(1, 1, 15, 8);
+
+        Assertions.assertEquals(new Color(10, 20, 30, 40).getRGB(), ((BufferedImage) ImageUtil.flipHorizontally(subimage)).getRGB(13, 2));
+        Assertions.assertEquals(new Color(10, 20, 30, 40).getRGB(), ((BufferedImage) ImageUtil.rotateBy90Degrees(subimage)).getRGB(5, 1));
+        Assertions.assertEquals(new Color(10, 20, 30, 40).getRGB(), ((BufferedImage) ImageUtil.crop(subimage, 1, 0, 0, 1)).getRGB(0, 1));
+        Assertions.assertEquals(new Color(245, 235, 225, 40).getRGB(), ((BufferedImage) ImageUtil.invertColors(subimage)).getRGB(1, 2));
+        Assertions.assertEquals(0, ((BufferedImage) ImageUtil.convertToGrayscale(subimage)).getRGB(0, 0));
+    }
+
+    @Test
+    public void parallelProcessingTest() {
+        BufferedImage noiseImage = new BufferedImage(300, 200, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(7);
+        for (int y = 0; y < noiseImage.getHeight(); y++) {
+            for (int x = 0; x < noiseImage.getWidth(); x++) {
+                noiseImage.setRGB(x, y, random.nextInt());
+            }
+        }
+
+        int threshold = ImageUtil.getParallelThreshold();
+        try {
+            ImageUtil.setParallelProcessing(false);
+            BufferedImage sequentialImage = (BufferedImage) ImageUtil.rotateBy90Degrees(ImageUtil.replaceColor(noiseImage, Color.GRAY, Color.RED, 60));
+            ImageUtil.setParallelProcessing(true);
+            ImageUtil.setParallelThreshold(0);
+            BufferedImage parallelImage = (BufferedImage) ImageUtil.rotateBy90Degrees(ImageUtil.replaceColor(noiseImage, Color.GRAY, Color.RED, 60));
+
+            Assertions.assertArrayEquals(sequentialImage.getRGB(0, 0, 200, 300, null, 0, 200), parallelImage.getRGB(0, 0, 200, 300, null, 0, 200));
+        } finally {
+            ImageUtil.setParallelThreshold(threshold);
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ImageUtil.setParallelThreshold(-1));
+    }
+
 }
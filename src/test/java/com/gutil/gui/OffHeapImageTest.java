@@ -0,0 +1,69 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class OffHeapImageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void colorAdjustmentsTest() {
+        BufferedImage image = noiseImage(120, 90);
+        //Chunks of 7 rows, so that rows of every band are spread across several buffers.
+        OffHeapImage offHeapImage = OffHeapImage.allocate(120, 90, 7 * 120 * 4).setRegion(image, 0, 0);
+
+        offHeapImage.invertColors().replaceColor(Color.GRAY, Color.RED, 60);
+        BufferedImage expected = (BufferedImage) ImageUtil.replaceColor(ImageUtil.invertColors(image), Color.GRAY, Color.RED, 60);
+
+        Assertions.assertArrayEquals(expected.getRGB(0, 0, 120, 90, null, 0, 120),
+                offHeapImage.toBufferedImage().getRGB(0, 0, 120, 90, null, 0, 120));
+        Assertions.assertEquals(expected.getRGB(33, 44), offHeapImage.getRGB(33, 44));
+    }
+
+    @Test
+    public void regionTest() {
+        BufferedImage image = noiseImage(40, 30);
+        OffHeapImage offHeapImage = OffHeapImage.allocate(100, 100, 3 * 100 * 4).setRegion(image, 50, 60);
+        BufferedImage region = offHeapImage.toBufferedImage(new Rectangle(45, 58, 50, 40));
+
+        Assertions.assertEquals(0, region.getRGB(0, 0));
+        Assertions.assertEquals(image.getRGB(0, 0), region.getRGB(5, 2));
+        Assertions.assertEquals(image.getRGB(39, 29), region.getRGB(44, 31));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> offHeapImage.toBufferedImage(new Rectangle(90, 0, 20, 10)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> offHeapImage.getRGB(100, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OffHeapImage.allocate(0, 10));
+    }
+
+    @Test
+    public void mappedFileTest() {
+        Path file = directory.resolve("pixels.raw");
+        OffHeapImage offHeapImage = OffHeapImage.map(file, 64, 48);
+        Assertions.assertNotNull(offHeapImage);
+        offHeapImage.setRGB(10, 20, Color.ORANGE.getRGB());
+
+        OffHeapImage reopenedImage = OffHeapImage.map(file, 64, 48);
+        Assertions.assertEquals(Color.ORANGE.getRGB(), reopenedImage.getRGB(10, 20));
+        Assertions.assertNull(OffHeapImage.map(directory.resolve("missing").resolve("pixels.raw"), 64, 48));
+    }
+
+    private static BufferedImage noiseImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(5);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+public class OrientedImageTest {
+
+    @Test
+    public void compositionTest() {
+        for (Orientation orientation : Orientation.values()) {
+            Assertions.assertEquals(orientation, orientation.flipHorizontally().flipHorizontally());
+            Assertions.assertEquals(orientation, orientation.rotateBy90Degrees().rotateBy270Degrees());
+            Assertions.assertEquals(orientation.rotateBy180Degrees(), orientation.flipHorizontally().flipVertically());
+        }
+        Assertions.assertEquals(Orientation.TRANSPOSED, Orientation.FLIPPED_HORIZONTALLY.rotateBy270Degrees());
+        Assertions.assertEquals(Orientation.TRANSVERSE, Orientation.FLIPPED_HORIZONTALLY.rotateBy90Degrees());
+    }
+
+    @Test
+    public void orientedPixelsTest() {
+        BufferedImage image = new BufferedImage(37, 23, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(20);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt() | 0xff000000);
+            }
+        }
+
+        OrientedImage transposed = OrientedImage.of(image).flipVertically().rotateBy90Degrees();
+        Assertions.assertSame(image, transposed.getImage());
+        Assertions.assertEquals(Orientation.TRANSPOSED, transposed.getOrientation());
+        assertSamePixels(ImageUtil.rotateBy90Degrees(ImageUtil.flipVertically(image)), transposed);
+
+        OrientedImage rotated = OrientedImage.of(image).flipVertically().rotateBy90Degrees().flipVertically();
+        Assertions.assertEquals(Orientation.ROTATED_270, rotated.getOrientation());
+        assertSamePixels(ImageUtil.rotateBy270Degrees(image), rotated);
+
+        OrientedImage flipped = OrientedImage.of(image).rotateBy180Degrees().flipHorizontally();
+        Assertions.assertEquals(Orientation.FLIPPED_VERTICALLY, flipped.getOrientation());
+        assertSamePixels(ImageUtil.flipVertically(image), flipped);
+
+        for (Orientation orientation : Orientation.values()) {
+            OrientedImage orientedImage = OrientedImage.of(image, orientation);
+            Assertions.assertEquals(orientation.swapsDimensions() ? 23 : 37, orientedImage.getWidth());
+            assertSamePixels(orientedImage.toImage(), orientedImage);
+        }
+        Assertions.assertSame(image, OrientedImage.of(image).toImage());
+    }
+
+    /**
+     * Checks both the materialized image and the image drawn with the orientation transform against the expected pixels.
+     */
+    private static void assertSamePixels(Image expected, OrientedImage orientedImage) {
+        BufferedImage expectedImage = (BufferedImage) expected;
+        BufferedImage materialized = (BufferedImage) orientedImage.toImage();
+        Assertions.assertEquals(expectedImage.getWidth(), orientedImage.getWidth());
+        Assertions.assertEquals(expectedImage.getHeight(), orientedImage.getHeight());
+
+        BufferedImage drawn = new BufferedImage(orientedImage.getWidth() + 4, orientedImage.getHeight() + 4, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = drawn.createGraphics();
+        orientedImage.draw(g2, 2, 2);
+        g2.dispose();
+
+        for (int y = 0; y < expectedImage.getHeight(); y++) {
+            for (int x = 0; x < expectedImage.getWidth(); x++) {
+                Assertions.assertEquals(expectedImage.getRGB(x, y), materialized.getRGB(x, y));
+                Assertions.assertEquals(expectedImage.getRGB(x, y), drawn.getRGB(x + 2, y + 2));
+            }
+        }
+    }
+
+}
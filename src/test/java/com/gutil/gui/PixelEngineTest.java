@@ -0,0 +1,116 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+
+public class PixelEngineTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY})
+    public void byteRasterConformanceTest(int imageType) {
+        BufferedImage image = new BufferedImage(83, 61, imageType);
+        Random random = new Random(imageType);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        //A subimage, so that the raster offsets are not zero.
+        BufferedImage subimage = image.getSubimage(3, 2, 71, 53);
+
+        for (BufferedImage source : new BufferedImage[]{image, subimage}) {
+            int width = source.getWidth();
+            int height = source.getHeight();
+
+            assertCopied(source, ImageUtil.crop(source, 4, 7, 5, 6), (x, y) -> new Point(x + 6, y + 4));
+            assertCopied(source, ImageUtil.flipHorizontally(source), (x, y) -> new Point(width - 1 - x, y));
+            assertCopied(source, ImageUtil.flipVertically(source), (x, y) -> new Point(x, height - 1 - y));
+            assertCopied(source, ImageUtil.rotateBy90Degrees(source), (x, y) -> new Point(y, height - 1 - x));
+            assertCopied(source, ImageUtil.rotateBy270Degrees(source), (x, y) -> new Point(width - 1 - y, x));
+
+            assertConforms(source, ImageUtil.invertColors(source), ColorKernels::invert);
+            assertConforms(source, ImageUtil.convertToGrayscale(source), ColorKernels::grayscale);
+            assertConforms(source, ImageUtil.replaceColor(source, Color.GRAY, Color.ORANGE, 90),
+                    ColorKernels.replace(Color.GRAY, Color.ORANGE, 90));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR})
+    public void tiledRotationTest(int imageType) {
+        //Several tiles in both directions, with partial tiles at the edges.
+        BufferedImage image = new BufferedImage(203, 141, imageType);
+        Random random = new Random(imageType);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+
+        int threshold = ImageUtil.getParallelThreshold();
+        try {
+            for (int parallelThreshold : new int[]{Integer.MAX_VALUE, 0}) {
+                ImageUtil.setParallelThreshold(parallelThreshold);
+                assertCopied(image, ImageUtil.rotateBy90Degrees(image), (x, y) -> new Point(y, 140 - x));
+                assertCopied(image, ImageUtil.rotateBy270Degrees(image), (x, y) -> new Point(202 - y, x));
+            }
+        } finally {
+            ImageUtil.setParallelThreshold(threshold);
+        }
+    }
+
+    /**
+     * Checks that every pixel of the result holds exactly the samples of the mapped source pixel. Copying through
+     * {@code getRGB} and {@code setRGB} would not be exact, as grayscale samples do not survive the round trip.
+     */
+    private static void assertCopied(BufferedImage source, Image result, SourcePosition sourcePosition) {
+        BufferedImage resultImage = (BufferedImage) result;
+        Assertions.assertEquals(source.getType(), resultImage.getType());
+
+        for (int y = 0; y < resultImage.getHeight(); y++) {
+            for (int x = 0; x < resultImage.getWidth(); x++) {
+                Point position = sourcePosition.get(x, y);
+                Assertions.assertArrayEquals(source.getRaster().getPixel(position.x, position.y, (int[]) null),
+                        resultImage.getRaster().getPixel(x, y, (int[]) null));
+            }
+        }
+    }
+
+    /**
+     * Checks the result against the pixels computed one by one with {@code getRGB} and {@code setRGB}.
+     */
+    private static void assertConforms(BufferedImage source, Image result, IntUnaryOperator kernel) {
+        BufferedImage resultImage = (BufferedImage) result;
+        Assertions.assertEquals(source.getType(), resultImage.getType());
+
+        BufferedImage expectedImage = new BufferedImage(source.getWidth(), source.getHeight(), source.getType());
+        for (int y = 0; y < expectedImage.getHeight(); y++) {
+            for (int x = 0; x < expectedImage.getWidth(); x++) {
+                expectedImage.setRGB(x, y, kernel.applyAsInt(source.getRGB(x, y)));
+            }
+        }
+
+        for (int y = 0; y < expectedImage.getHeight(); y++) {
+            for (int x = 0; x < expectedImage.getWidth(); x++) {
+                Assertions.assertArrayEquals(expectedImage.getRaster().getPixel(x, y, (int[]) null),
+                        resultImage.getRaster().getPixel(x, y, (int[]) null));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SourcePosition {
+
+        Point get(int x, int y);
+
+    }
+
+}
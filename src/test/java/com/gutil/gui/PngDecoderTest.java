@@ -0,0 +1,210 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+public class PngDecoderTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_3BYTE_BGR})
+    public void colorImageTest(int imageType) throws IOException {
+        BufferedImage image = randomImage(imageType);
+        File file = write(image, false);
+
+        BufferedImage decodedImage = PngDecoder.read(file);
+        BufferedImage expectedImage = ImageIO.read(file);
+
+        Assertions.assertNotNull(decodedImage);
+        Assertions.assertEquals(expectedImage.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB, decodedImage.getType());
+        Assertions.assertArrayEquals(pixels(expectedImage), pixels(decodedImage));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_BYTE_INDEXED, BufferedImage.TYPE_BYTE_BINARY})
+    public void imageIOImageTest(int imageType) throws IOException {
+        File file = write(randomImage(imageType), false);
+
+        //Grayscale and indexed images keep the color models and colors ImageIO gives them.
+        Assertions.assertNull(PngDecoder.read(file));
+        BufferedImage image = (BufferedImage) ImageUtil.readImage(file);
+        BufferedImage expectedImage = ImageIO.read(file);
+        Assertions.assertEquals(expectedImage.getType(), image.getType());
+        Assertions.assertEquals(imageType != BufferedImage.TYPE_BYTE_GRAY, image.getColorModel() instanceof IndexColorModel);
+        Assertions.assertArrayEquals(pixels(expectedImage), pixels(image));
+    }
+
+    @Test
+    public void corruptedImageTest() throws IOException {
+        File file = write(randomImage(BufferedImage.TYPE_INT_RGB), false);
+        byte[] content = Files.readAllBytes(file.toPath());
+        int dataOffset = indexOf(content, "IDAT") + 4;
+
+        byte[] corruptedData = content.clone();
+        corruptedData[dataOffset + 20] ^= 0x10;
+        Files.write(file.toPath(), corruptedData);
+        Assertions.assertNull(PngDecoder.read(file));
+
+        byte[] corruptedChecksum = content.clone();
+        corruptedChecksum[content.length - 1] ^= 0x01;
+        Files.write(file.toPath(), corruptedChecksum);
+        Assertions.assertNull(PngDecoder.read(file));
+    }
+
+    @Test
+    public void unknownChunkTest() throws IOException {
+        File file = write(randomImage(BufferedImage.TYPE_INT_RGB), false);
+        byte[] content = Files.readAllBytes(file.toPath());
+
+        //Unknown ancillary chunks are skipped, while an unknown critical chunk may change the meaning of the image.
+        Files.write(file.toPath(), insertChunk(content, "teSt"));
+        Assertions.assertArrayEquals(pixels(ImageIO.read(file)), pixels(PngDecoder.read(file)));
+        Files.write(file.toPath(), insertChunk(content, "TEST"));
+        Assertions.assertNull(PngDecoder.read(file));
+    }
+
+    @Test
+    public void transparentColorTest() throws IOException {
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(1, 2, 0xFF0000);
+        File file = write(image, false);
+        byte[] content = Files.readAllBytes(file.toPath());
+
+        //The color space chunks do not change the colors ImageIO decodes, so they are skipped.
+        Files.write(file.toPath(), insertChunk(content, 33, "gAMA", new byte[]{0, 1, (byte) 0x86, (byte) 0xA0}));
+        Assertions.assertArrayEquals(pixels(ImageIO.read(file)), pixels(PngDecoder.read(file)));
+
+        //A tRNS chunk makes the pixels of the key color transparent, which is left to ImageIO.
+        Files.write(file.toPath(), insertChunk(content, 33, "tRNS", new byte[]{0, (byte) 255, 0, 0, 0, 0}));
+        Assertions.assertNull(PngDecoder.read(file));
+        BufferedImage decodedImage = (BufferedImage) ImageUtil.readImage(file);
+        Assertions.assertTrue(decodedImage.getColorModel().hasAlpha());
+        Assertions.assertEquals(0, decodedImage.getRGB(1, 2) >>> 24);
+        Assertions.assertEquals(0xFF000000, decodedImage.getRGB(0, 0));
+    }
+
+    @Test
+    public void malformedImageTest() throws IOException {
+        File file = write(randomImage(BufferedImage.TYPE_INT_RGB), false);
+        byte[] content = Files.readAllBytes(file.toPath());
+        int dataOffset = indexOf(content, "IDAT") + 4;
+        int dataLength = ByteBuffer.wrap(content, dataOffset - 8, 4).getInt();
+
+        //The image data split into two chunks, with a wider second header in between.
+        byte[] header = Arrays.copyOfRange(content, 16, 29);
+        ByteBuffer.wrap(header).putInt(0, 1000);
+        ByteBuffer buffer = ByteBuffer.allocate(content.length + 2 * 12 + 13);
+        buffer.put(content, 0, dataOffset - 8)
+                .put(chunk("IDAT", Arrays.copyOfRange(content, dataOffset, dataOffset + 100)))
+                .put(chunk("IHDR", header))
+                .put(chunk("IDAT", Arrays.copyOfRange(content, dataOffset + 100, dataOffset + dataLength)))
+                .put(content, dataOffset + dataLength + 4, content.length - dataOffset - dataLength - 4);
+        Files.write(file.toPath(), buffer.array());
+
+        Assertions.assertNull(PngDecoder.read(file));
+        //ImageIO reports the file as malformed as well, instead of throwing.
+        Assertions.assertNull(ImageUtil.readImage(file));
+
+        //A row of a very wide image does not fit in an array.
+        ByteBuffer.wrap(header).putInt(0, Integer.MAX_VALUE / 3).putInt(4, 1);
+        Files.write(file.toPath(), insertChunk(Arrays.copyOfRange(content, 0, 8), 8, "IHDR", header));
+        Assertions.assertNull(PngDecoder.read(file));
+    }
+
+    @Test
+    public void unsupportedImageTest() throws IOException {
+        Assertions.assertNull(PngDecoder.read(write(randomImage(BufferedImage.TYPE_USHORT_GRAY), false)));
+        Assertions.assertNull(PngDecoder.read(write(randomImage(BufferedImage.TYPE_INT_RGB), true)));
+        File bmpFile = directory.resolve("image.bmp").toFile();
+        ImageIO.write(randomImage(BufferedImage.TYPE_INT_RGB), "bmp", bmpFile);
+        Assertions.assertNull(PngDecoder.read(bmpFile));
+        Assertions.assertNull(PngDecoder.read(directory.resolve("missing.png").toFile()));
+
+        //Left to ImageIO.
+        Assertions.assertNotNull(ImageUtil.readImage(write(randomImage(BufferedImage.TYPE_INT_RGB), true)));
+    }
+
+    private static BufferedImage randomImage(int imageType) {
+        BufferedImage image = new BufferedImage(129, 67, imageType);
+        Random random = new Random(imageType);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, y < 30 ? random.nextInt() : (x << 17) | (y << 9) | x * y);
+            }
+        }
+        return image;
+    }
+
+    private File write(BufferedImage image, boolean interlaced) throws IOException {
+        File file = directory.resolve(image.getType() + (interlaced ? "-interlaced" : "") + ".png").toFile();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setProgressiveMode(interlaced ? ImageWriteParam.MODE_DEFAULT : ImageWriteParam.MODE_DISABLED);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return file;
+    }
+
+    /**
+     * Inserts a chunk with valid CRC before the IEND chunk, the last 12 bytes of the file.
+     */
+    private static byte[] insertChunk(byte[] content, String type) {
+        return insertChunk(content, content.length - 12, type, new byte[]{1, 2, 3});
+    }
+
+    private static byte[] insertChunk(byte[] content, int offset, String type, byte[] data) {
+        byte[] chunk = chunk(type, data);
+        ByteBuffer buffer = ByteBuffer.allocate(content.length + chunk.length);
+        buffer.put(content, 0, offset).put(chunk).put(content, offset, content.length - offset);
+        return buffer.array();
+    }
+
+    private static byte[] chunk(String type, byte[] data) {
+        CRC32 checksum = new CRC32();
+        checksum.update(type.getBytes(StandardCharsets.US_ASCII));
+        checksum.update(data);
+        return ByteBuffer.allocate(12 + data.length).putInt(data.length).put(type.getBytes(StandardCharsets.US_ASCII))
+                .put(data).putInt((int) checksum.getValue()).array();
+    }
+
+    private static int indexOf(byte[] content, String type) {
+        byte[] bytes = type.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i + bytes.length <= content.length; i++) {
+            if (Arrays.equals(content, i, i + bytes.length, bytes, 0, bytes.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Adler32;
+
+public class PngEncoderTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR})
+    public void roundTripTest(int imageType) throws IOException {
+        //Tall enough to be split into several chunks, with a noisy half and a smooth half.
+        BufferedImage image = new BufferedImage(301, 1000, imageType);
+        Random random = new Random(13);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, y < 500 ? random.nextInt() : (x << 16) | (y << 6) | ((x + y) & 0xFF) | 0x80000000);
+            }
+        }
+
+        int threshold = ImageUtil.getParallelThreshold();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try {
+            ImageUtil.setParallelThreshold(0);
+            PngEncoder.write(image, 6, new DataOutputStream(stream));
+        } finally {
+            ImageUtil.setParallelThreshold(threshold);
+        }
+        BufferedImage decodedImage = ImageIO.read(new ByteArrayInputStream(stream.toByteArray()));
+
+        Assertions.assertEquals(image.getColorModel().hasAlpha(), decodedImage.getColorModel().hasAlpha());
+        Assertions.assertArrayEquals(image.getRGB(0, 0, 301, 1000, null, 0, 301), decodedImage.getRGB(0, 0, 301, 1000, null, 0, 301));
+    }
+
+    @Test
+    public void combineAdlerTest() {
+        byte[] data = new byte[200000];
+        new Random(17).nextBytes(data);
+
+        Adler32 whole = new Adler32();
+        whole.update(data);
+        Adler32 first = new Adler32();
+        first.update(data, 0, 70001);
+        Adler32 second = new Adler32();
+        second.update(data, 70001, data.length - 70001);
+
+        Assertions.assertEquals(whole.getValue(), PngEncoder.combineAdler(first.getValue(), second.getValue(), data.length - 70001));
+    }
+
+    @Test
+    public void supportsTest() {
+        Assertions.assertTrue(PngEncoder.supports(new BufferedImage(1, 1, BufferedImage.TYPE_4BYTE_ABGR)));
+        Assertions.assertFalse(PngEncoder.supports(new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY)));
+        Assertions.assertFalse(PngEncoder.supports(new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_INDEXED)));
+        Assertions.assertFalse(PngEncoder.supports(new BufferedImage(1, 1, BufferedImage.TYPE_USHORT_GRAY)));
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class RecolorOperationTest {
+
+    @Test
+    public void channelRangeTest() {
+        //Ranges clipped at both ends of the channel values.
+        Color originalColor = new Color(4, 128, 250);
+        RecolorOperation operation = RecolorOperation.of(originalColor, Color.GREEN, 9);
+        BulkColorKernels scalar = new ScalarColorKernels();
+        int[] expected = new int[1];
+
+        for (int value = 0; value < 256; value++) {
+            for (int argb : new int[]{0x80048000 | value, 0xFF0400FA | (value << 8), 0x0000FFFA | (value << 16)}) {
+                scalar.replace(new int[]{argb}, 0, expected, 0, 1, originalColor.getRGB() & 0xFFFFFF, 0x00FF00, 9);
+                Assertions.assertEquals(expected[0], operation.applyAsInt(argb));
+            }
+        }
+    }
+
+    @Test
+    public void reuseTest() {
+        RecolorOperation operation = RecolorOperation.of(Color.BLUE, Color.ORANGE, 10);
+        Random random = new Random(22);
+
+        for (int imageType : new int[]{BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_INDEXED}) {
+            BufferedImage image = new BufferedImage(31, 17, imageType);
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    image.setRGB(x, y, random.nextBoolean() ? Color.BLUE.getRGB() : random.nextInt() | 0xFF000000);
+                }
+            }
+
+            BufferedImage expected = (BufferedImage) ImageUtil.replaceColor(image, Color.BLUE, Color.ORANGE, 10);
+            BufferedImage actual = (BufferedImage) operation.apply(image);
+            Assertions.assertEquals(imageType, actual.getType());
+            Assertions.assertArrayEquals(expected.getRGB(0, 0, 31, 17, null, 0, 31), actual.getRGB(0, 0, 31, 17, null, 0, 31));
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RecolorOperation.of(Color.BLUE, Color.ORANGE, 256));
+    }
+
+    @Test
+    public void multipleReplacementsTest() {
+        Map<Color, Color> colors = new LinkedHashMap<>();
+        colors.put(new Color(0, 0, 250), Color.RED);
+        colors.put(new Color(0, 0, 230), Color.GREEN);
+        colors.put(Color.RED, Color.WHITE);
+        RecolorOperation operation = RecolorOperation.of(colors, 12);
+        Assertions.assertEquals(3, operation.getReplacementCount());
+
+        BufferedImage image = new BufferedImage(4, 1, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, 0x800000F0);
+        image.setRGB(1, 0, 0xFF0000E0);
+        image.setRGB(2, 0, 0xFFFF0000);
+        image.setRGB(3, 0, 0xFF00FF00);
+
+        //Both blue ranges contain the first pixel, and replaced pixels are not replaced again.
+        Image result = ImageUtil.replaceColors(image, colors, 12);
+        Assertions.assertArrayEquals(new int[]{0x80FF0000, 0xFF00FF00, 0xFFFFFFFF, 0xFF00FF00},
+                ((BufferedImage) result).getRGB(0, 0, 4, 1, null, 0, 4));
+
+        RecolorOperation reversed = RecolorOperation.of(new Color(0, 0, 230), Color.GREEN, 12).and(new Color(0, 0, 250), Color.RED, 12);
+        Assertions.assertEquals(0x8000FF00, reversed.applyAsInt(0x800000F0));
+
+        RecolorOperation full = RecolorOperation.of(null, null, 0);
+        for (int i = 0; i < RecolorOperation.MAX_REPLACEMENTS; i++) {
+            full = full.and(new Color(i, i, i), Color.BLACK, 0);
+        }
+        Assertions.assertEquals(0xFF000000, full.applyAsInt(0xFF1F1F1F));
+        RecolorOperation finalFull = full;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> finalFull.and(Color.WHITE, Color.BLACK, 0));
+    }
+
+    @Test
+    public void replacementListTest() {
+        BufferedImage image = new BufferedImage(3, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0x0000F0);
+        image.setRGB(1, 0, 0x0000C8);
+        image.setRGB(2, 0, 0xE00000);
+
+        //Every replacement has its own threshold, so only the wide red range contains the third pixel.
+        List<RecolorOperation.Replacement> replacements = List.of(
+                new RecolorOperation.Replacement(new Color(0, 0, 250), Color.RED, 12),
+                new RecolorOperation.Replacement(new Color(0, 0, 230), Color.GREEN, 40),
+                new RecolorOperation.Replacement(new Color(250, 0, 0), Color.WHITE, 30),
+                new RecolorOperation.Replacement(null, Color.BLACK, 255));
+        Image result = ImageUtil.replaceColors(image, replacements);
+
+        Assertions.assertEquals(3, RecolorOperation.of(replacements).getReplacementCount());
+        Assertions.assertArrayEquals(new int[]{0xFFFF0000, 0xFF00FF00, 0xFFFFFFFF},
+                ((BufferedImage) result).getRGB(0, 0, 3, 1, null, 0, 3));
+    }
+
+}
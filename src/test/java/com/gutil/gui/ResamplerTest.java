@@ -0,0 +1,95 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+
+public class ResamplerTest {
+
+    @ParameterizedTest
+    @EnumSource(ResizeQuality.class)
+    public void uniformColorTest(ResizeQuality quality) {
+        BufferedImage image = new BufferedImage(90, 60, BufferedImage.TYPE_INT_ARGB);
+        fill(image, 0, 90, new Color(40, 120, 200, 180));
+
+        BufferedImage downscaled = (BufferedImage) ImageUtil.resize(image, 37, 0, quality);
+        BufferedImage upscaled = (BufferedImage) ImageUtil.resize(image, 0, 97, quality);
+
+        Assertions.assertEquals(37, downscaled.getWidth());
+        Assertions.assertEquals(24, downscaled.getHeight());
+        Assertions.assertEquals(145, upscaled.getWidth());
+        Assertions.assertEquals(97, upscaled.getHeight());
+        Assertions.assertEquals(new Color(40, 120, 200, 180).getRGB(), downscaled.getRGB(18, 12));
+        Assertions.assertEquals(new Color(40, 120, 200, 180).getRGB(), upscaled.getRGB(70, 50));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ResizeQuality.class, names = {"BOX", "BILINEAR", "BICUBIC", "LANCZOS3", "LINEAR_LIGHT"})
+    public void transparencyTest(ResizeQuality quality) {
+        //Fully transparent green pixels next to opaque red ones must not tint the red after resampling.
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        fill(image, 0, 32, Color.RED);
+        fill(image, 32, 64, new Color(0, 255, 0, 0));
+
+        Image resized = ImageUtil.resize(image, 20, 20, quality);
+
+        for (int x = 0; x < 20; x++) {
+            Color color = new Color(((BufferedImage) resized).getRGB(x, 10), true);
+            if (color.getAlpha() > 0) {
+                Assertions.assertEquals(0, color.getGreen());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ResizeQuality.class, names = {"BOX", "BILINEAR", "BICUBIC", "LANCZOS3"})
+    public void averagingTest(ResizeQuality quality) {
+        //Downscaling alternating black and white columns by a large factor must give an even gray.
+        BufferedImage image = new BufferedImage(400, 10, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < image.getWidth(); x += 2) {
+            fill(image, x, x + 1, Color.WHITE);
+        }
+
+        BufferedImage resized = (BufferedImage) ImageUtil.resize(image, 10, 10, quality);
+        Color color = new Color(resized.getRGB(5, 5));
+
+        Assertions.assertEquals(BufferedImage.TYPE_INT_RGB, resized.getType());
+        Assertions.assertTrue(Math.abs(color.getRed() - 128) <= 2, "Unexpected gray level: " + color.getRed());
+    }
+
+    @Test
+    public void linearLightTest() {
+        //Black and white columns average to half of the light, which is encoded as 188 in sRGB.
+        BufferedImage image = new BufferedImage(400, 10, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < image.getWidth(); x += 2) {
+            fill(image, x, x + 1, Color.WHITE);
+        }
+
+        BufferedImage resized = (BufferedImage) ImageUtil.resize(image, 10, 10, ResizeQuality.LINEAR_LIGHT);
+        Color color = new Color(resized.getRGB(5, 5));
+        Assertions.assertTrue(Math.abs(color.getRed() - 188) <= 2, "Unexpected gray level: " + color.getRed());
+
+        //Every sRGB value survives the conversion to linear light and back.
+        BufferedImage gradient = new BufferedImage(256, 4, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < 256; x++) {
+            fill(gradient, x, x + 1, new Color(x, 255 - x, x, 200));
+        }
+        BufferedImage copy = new BufferedImage(256, 4, BufferedImage.TYPE_INT_ARGB);
+        Resampler.resample(gradient, copy, Resampler.Filter.BOX, true);
+        Assertions.assertArrayEquals(gradient.getRGB(0, 0, 256, 4, null, 0, 256), copy.getRGB(0, 0, 256, 4, null, 0, 256));
+    }
+
+    private static void fill(BufferedImage image, int fromX, int toX, Color color) {
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = fromX; x < toX; x++) {
+                image.setRGB(x, y, color.getRGB());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+
+public class ResizeCacheTest {
+
+    @Test
+    public void hitTest() {
+        ResizeCache cache = new ResizeCache(1 << 20);
+        BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+
+        Image first = cache.resize(image, 50, 0, ResizeQuality.HIGH);
+        Image second = cache.resize(image, 50, 25, ResizeQuality.HIGH);
+        Image otherQuality = cache.resize(image, 50, 25, ResizeQuality.LOW);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertNotSame(first, otherQuality);
+        Assertions.assertEquals(50, first.getWidth(null));
+        Assertions.assertEquals(25, first.getHeight(null));
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(2, cache.getMissCount());
+        Assertions.assertEquals(2 * 50 * 25 * 4, cache.getSize());
+    }
+
+    @Test
+    public void evictionTest() {
+        //Room for exactly two 40x40 ARGB images.
+        ResizeCache cache = new ResizeCache(2 * 40 * 40 * 4);
+        BufferedImage first = new BufferedImage(80, 80, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage second = new BufferedImage(80, 80, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage third = new BufferedImage(80, 80, BufferedImage.TYPE_INT_ARGB);
+
+        cache.resize(first, 40, 40, ResizeQuality.LOW);
+        cache.resize(second, 40, 40, ResizeQuality.LOW);
+        cache.resize(first, 40, 40, ResizeQuality.LOW);
+        cache.resize(third, 40, 40, ResizeQuality.LOW);
+
+        Assertions.assertEquals(1, cache.getEvictionCount());
+        Assertions.assertEquals(2 * 40 * 40 * 4, cache.getSize());
+
+        //The least recently used image was the second one.
+        cache.resize(first, 40, 40, ResizeQuality.LOW);
+        Assertions.assertEquals(2, cache.getHitCount());
+        cache.resize(second, 40, 40, ResizeQuality.LOW);
+        Assertions.assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void illegalArgumentsTest() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ResizeCache(-1));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ResizeCache(1024).resize(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), 0, 0, ResizeQuality.LOW));
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+public class ScratchImagePoolTest {
+
+    @Test
+    public void reuseTest() {
+        ScratchImagePool pool = new ScratchImagePool(1 << 20);
+        BufferedImage image = pool.acquire(50, 40, BufferedImage.TYPE_INT_ARGB);
+
+        pool.release(image);
+        pool.release(image);
+        Assertions.assertEquals(50 * 40 * 4, pool.getSize());
+
+        Assertions.assertNotSame(image, pool.acquire(50, 40, BufferedImage.TYPE_INT_RGB));
+        Assertions.assertNotSame(image, pool.acquire(40, 50, BufferedImage.TYPE_INT_ARGB));
+        Assertions.assertSame(image, pool.acquire(50, 40, BufferedImage.TYPE_INT_ARGB));
+        Assertions.assertNotSame(image, pool.acquire(50, 40, BufferedImage.TYPE_INT_ARGB));
+        Assertions.assertEquals(0, pool.getSize());
+
+        //Subimages share the pixels of a larger image.
+        pool.release(image.getSubimage(0, 0, 10, 10));
+        Assertions.assertEquals(0, pool.getSize());
+
+        //Indexed images carry their own palette, recolored ones share the pixels of the original.
+        BufferedImage indexed = new BufferedImage(50, 40, BufferedImage.TYPE_BYTE_INDEXED);
+        pool.release(indexed);
+        pool.release(PixelEngine.mapPalette(indexed, ColorKernels::invert));
+        Assertions.assertEquals(0, pool.getSize());
+        Assertions.assertNotSame(indexed, pool.acquire(50, 40, BufferedImage.TYPE_BYTE_INDEXED));
+    }
+
+    @Test
+    public void evictionTest() {
+        //Room for exactly two 40x40 ARGB images.
+        ScratchImagePool pool = new ScratchImagePool(2 * 40 * 40 * 4);
+        BufferedImage first = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage second = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage third = new BufferedImage(40, 40, BufferedImage.TYPE_3BYTE_BGR);
+
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        Assertions.assertEquals(40 * 40 * 4 + 40 * 40 * 3, pool.getSize());
+
+        //The oldest image of the least recently used size was dropped.
+        Assertions.assertSame(second, pool.acquire(40, 40, BufferedImage.TYPE_INT_ARGB));
+        Assertions.assertNotSame(first, pool.acquire(40, 40, BufferedImage.TYPE_INT_ARGB));
+        Assertions.assertSame(third, pool.acquire(40, 40, BufferedImage.TYPE_3BYTE_BGR));
+
+        pool.release(new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB));
+        Assertions.assertEquals(0, pool.getSize());
+    }
+
+    @Test
+    public void illegalArgumentsTest() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ScratchImagePool(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ScratchImagePool(1024).acquire(0, 10, BufferedImage.TYPE_INT_RGB));
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.gutil.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class StreamingImagePipelineTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void cropAndColorTest() throws IOException {
+        BufferedImage image = new BufferedImage(150, 100, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(11);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        File source = directory.resolve("source.png").toFile();
+        File target = directory.resolve("target.png").toFile();
+        ImageIO.write(image, "png", source);
+
+        boolean written = StreamingImagePipeline.of(source)
+                .setStripHeight(7)
+                .crop(10, 20, 5, 15)
+                .invertColors()
+                .replaceColor(Color.GRAY, Color.RED, 60)
+                .write(target, "png");
+
+        BufferedImage expected = (BufferedImage) ImageUtil.replaceColor(
+                ImageUtil.invertColors(ImageUtil.crop(image, 10, 20, 5, 15)), Color.GRAY, Color.RED, 60);
+        BufferedImage actual = ImageIO.read(target);
+
+        Assertions.assertTrue(written);
+        Assertions.assertEquals(115, actual.getWidth());
+        Assertions.assertEquals(85, actual.getHeight());
+        Assertions.assertArrayEquals(expected.getRGB(0, 0, 115, 85, null, 0, 115), actual.getRGB(0, 0, 115, 85, null, 0, 115));
+    }
+
+    @Test
+    public void overwriteTest() throws IOException {
+        BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(5);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        File file = directory.resolve("image.png").toFile();
+        ImageIO.write(image, "png", file);
+
+        //Writing over the source file.
+        StreamingImagePipeline pipeline = StreamingImagePipeline.of(file).setStripHeight(4).invertColors();
+        Assertions.assertTrue(pipeline.write(file, "png"));
+        BufferedImage expected = (BufferedImage) ImageUtil.invertColors(image);
+        Assertions.assertArrayEquals(expected.getRGB(0, 0, 40, 30, null, 0, 40), ImageIO.read(file).getRGB(0, 0, 40, 30, null, 0, 40));
+
+        //A failed write leaves the existing target and no temporary file behind.
+        File source = directory.resolve("source.png").toFile();
+        ImageIO.write(image, "png", source);
+        pipeline = StreamingImagePipeline.of(source);
+        Assertions.assertTrue(source.delete());
+        long length = file.length();
+        Assertions.assertFalse(pipeline.write(file, "png"));
+        Assertions.assertEquals(length, file.length());
+        Assertions.assertEquals(1, directory.toFile().list().length);
+
+        //A source replaced by a smaller image after the pipeline was created fails while decoding the strips.
+        ImageIO.write(image, "png", source);
+        pipeline = StreamingImagePipeline.of(source).setStripHeight(4);
+        ImageIO.write(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), "png", source);
+        Assertions.assertFalse(pipeline.write(file, "png"));
+        Assertions.assertEquals(length, file.length());
+        Assertions.assertEquals(2, directory.toFile().list().length);
+    }
+
+    @Test
+    public void failureTest() {
+        File missing = directory.resolve("missing.png").toFile();
+        File fixture = new File(StreamingImagePipelineTest.class.getResource("/Moria.png").getFile());
+
+        Assertions.assertNull(StreamingImagePipeline.of(missing));
+        Assertions.assertFalse(StreamingImagePipeline.of(fixture).write(missing, "unknown"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> StreamingImagePipeline.of(fixture).setStripHeight(0));
+    }
+
+}